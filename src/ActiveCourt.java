@@ -0,0 +1,128 @@
+import java.awt.Canvas;
+import java.awt.DisplayMode;
+import java.awt.Graphics;
+import java.awt.GraphicsConfiguration;
+import java.awt.Toolkit;
+import java.awt.image.BufferStrategy;
+
+/**
+ * Heavyweight surface that draws a {@link TronMap} from its own thread.
+ * <p>
+ * Instead of waiting for Swing to act on {@code repaint()} requests, a
+ * render loop draws the court through a {@link BufferStrategy} once per
+ * display refresh. The simulation keeps stepping on its timer and hands
+ * each step over as a {@link Frame}; the loop draws the newest one without
+ * locking the simulation, placing the heads part of the way from their
+ * previous to their current position so motion stays smooth at any
+ * refresh rate.
+ * <p>
+ * The loop runs while the canvas is part of a displayable window: it starts
+ * in {@link #addNotify()} and stops in {@link #removeNotify()}. The canvas
+ * never takes focus, so keys keep going to the map.
+ */
+@SuppressWarnings("serial")
+public class ActiveCourt extends Canvas implements Runnable {
+
+	// frames per second when the display does not report its refresh rate
+	private static final int DEFAULT_REFRESH = 60;
+
+	private final TronMap map;
+	private volatile Thread loop;
+
+	/**
+	 * Creates a surface for the given map.
+	 *
+	 * @param map the map to draw
+	 */
+	public ActiveCourt(TronMap map) {
+		if (map == null) {
+			throw new IllegalArgumentException("map must not be null");
+		}
+		this.map = map;
+		setIgnoreRepaint(true);
+		setFocusable(false);
+	}
+
+	@Override
+	public void addNotify() {
+		super.addNotify();
+		Thread t = new Thread(this, "ActiveCourt");
+		t.setDaemon(true);
+		loop = t;
+		t.start();
+	}
+
+	@Override
+	public void removeNotify() {
+		Thread t = loop;
+		loop = null;
+		if (t != null) {
+			t.interrupt();
+			try {
+				t.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		super.removeNotify();
+	}
+
+	// the render loop owns the surface; Swing painting would only flicker
+	@Override
+	public void paint(Graphics g) {
+	}
+
+	@Override
+	public void update(Graphics g) {
+	}
+
+	/**
+	 * Draws frames until the canvas is removed from its window.
+	 */
+	public void run() {
+		createBufferStrategy(2);
+		BufferStrategy bs = getBufferStrategy();
+		long period = 1000000000L / refreshRate();
+		long next = System.nanoTime();
+		while (loop == Thread.currentThread()) {
+			do {
+				do {
+					Graphics g = bs.getDrawGraphics();
+					try {
+						map.renderFrame(g);
+					} finally {
+						g.dispose();
+					}
+				} while (bs.contentsRestored());
+				bs.show();
+			} while (bs.contentsLost());
+			Toolkit.getDefaultToolkit().sync();
+
+			next += period;
+			long wait = next - System.nanoTime();
+			if (wait > 0) {
+				try {
+					Thread.sleep(wait / 1000000, (int) (wait % 1000000));
+				} catch (InterruptedException e) {
+					break;
+				}
+			} else {
+				// fell behind; start counting from now instead of catching up
+				next = System.nanoTime();
+			}
+		}
+		bs.dispose();
+	}
+
+	// the refresh rate of the screen the canvas is on
+	private int refreshRate() {
+		GraphicsConfiguration gc = getGraphicsConfiguration();
+		if (gc != null) {
+			DisplayMode mode = gc.getDevice().getDisplayMode();
+			if (mode != null && mode.getRefreshRate() != DisplayMode.REFRESH_RATE_UNKNOWN) {
+				return mode.getRefreshRate();
+			}
+		}
+		return DEFAULT_REFRESH;
+	}
+}
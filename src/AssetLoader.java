@@ -0,0 +1,172 @@
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import javax.swing.ImageIcon;
+
+/**
+ * Decodes every image under {@code /images} in parallel in the background
+ * and keeps button icons built from them.
+ * <p>
+ * {@link #preloadAll()} decodes {@link Picture}'s sprite atlas on a small
+ * daemon pool, then one decode per image the atlas does not hold, and
+ * returns at once. Decoded images go into {@link Picture}'s cache, or come
+ * straight from the atlas, so later draws find them there.
+ * {@link #image(String)} and {@link #icon(String)} wait only for the one
+ * image they need if it is still being decoded, and load it themselves if
+ * it was never queued.
+ * <p>
+ * Non-instantiable utility; safe to use from any thread.
+ */
+public final class AssetLoader {
+
+	// Prevent instantiation
+	private AssetLoader() {}
+
+	// Classpath directory that holds the images
+	private static final String IMAGES = "images/";
+
+	// Decodes queued or finished by preloadAll(), by file name
+	private static final Map<String, CompletableFuture<BufferedImage>> loads =
+		new ConcurrentHashMap<>();
+
+	// Icons built so far, by file name
+	private static final Map<String, ImageIcon> icons = new ConcurrentHashMap<>();
+
+	// Completes once every image has been decoded
+	private static CompletableFuture<Void> all;
+
+	/**
+	 * Start decoding every image in the background. Calling this again
+	 * returns the same future.
+	 *
+	 * @return A future that completes once every image is decoded.
+	 */
+	public static synchronized CompletableFuture<Void> preloadAll() {
+		if (all != null) {
+			return all;
+		}
+		List<String> names = listImages();
+		if (names.isEmpty()) {
+			all = CompletableFuture.completedFuture(null);
+			return all;
+		}
+		int threads = Math.max(1, Math.min(names.size(),
+				Runtime.getRuntime().availableProcessors()));
+		final ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+			Thread t = new Thread(r, "AssetLoader");
+			t.setDaemon(true);
+			return t;
+		});
+		// every Picture.get waits for the atlas, so decode it once first and
+		// only fan out for the images it does not hold
+		CompletableFuture<SpriteAtlas> atlas =
+				CompletableFuture.supplyAsync(Picture::getAtlas, pool);
+		List<CompletableFuture<BufferedImage>> futures = new ArrayList<>();
+		for (String name : names) {
+			CompletableFuture<BufferedImage> f = atlas.thenCompose(a ->
+					a != null && a.contains(name)
+							? CompletableFuture.completedFuture(a.get(name))
+							: CompletableFuture.supplyAsync(() -> Picture.get(name), pool));
+			loads.put(name, f);
+			futures.add(f);
+		}
+		all = CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]));
+		all.whenComplete((v, e) -> pool.shutdown());
+		return all;
+	}
+
+	/**
+	 * Get an image, waiting for its background decode if one is running.
+	 *
+	 * @param name The file name under /images.
+	 * @return The image, or null if it could not be loaded.
+	 */
+	public static BufferedImage image(String name) {
+		CompletableFuture<BufferedImage> f = loads.get(name);
+		if (f != null) {
+			BufferedImage img = f.join();
+			if (img != null) {
+				return img;
+			}
+		}
+		return Picture.get(name);
+	}
+
+	/**
+	 * Get an icon for a button or label, built once from the image.
+	 *
+	 * @param name The file name under /images.
+	 * @return The icon; empty if the image could not be loaded.
+	 */
+	public static ImageIcon icon(String name) {
+		ImageIcon icon = icons.get(name);
+		if (icon == null) {
+			BufferedImage img = image(name);
+			icon = (img != null) ? new ImageIcon(img) : new ImageIcon();
+			ImageIcon raced = icons.putIfAbsent(name, icon);
+			if (raced != null) {
+				icon = raced;
+			}
+		}
+		return icon;
+	}
+
+	// Names of the images on the classpath, from a directory or a jar
+	static List<String> listImages() {
+		List<String> names = new ArrayList<>();
+		URL dir = AssetLoader.class.getResource("/" + IMAGES);
+		if (dir == null) {
+			return names;
+		}
+		try {
+			if ("file".equals(dir.getProtocol())) {
+				File[] files = new File(dir.toURI()).listFiles();
+				if (files != null) {
+					for (File f : files) {
+						if (f.isFile() && isImage(f.getName())) {
+							names.add(f.getName());
+						}
+					}
+				}
+			} else {
+				URLConnection c = dir.openConnection();
+				if (c instanceof JarURLConnection) {
+					JarFile jar = ((JarURLConnection) c).getJarFile();
+					Enumeration<JarEntry> entries = jar.entries();
+					while (entries.hasMoreElements()) {
+						String e = entries.nextElement().getName();
+						if (e.startsWith(IMAGES) && e.indexOf('/', IMAGES.length()) < 0
+								&& isImage(e)) {
+							names.add(e.substring(IMAGES.length()));
+						}
+					}
+				}
+			}
+		} catch (IOException | URISyntaxException e) {
+			System.err.println("Failed to list images (" + e + ")");
+		}
+		names.sort(null);
+		return names;
+	}
+
+	private static boolean isImage(String name) {
+		String n = name.toLowerCase();
+		return n.endsWith(".png") || n.endsWith(".jpg") || n.endsWith(".jpeg")
+				|| n.endsWith(".gif");
+	}
+}
@@ -0,0 +1,148 @@
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Packs the small sprites of a directory of images into one
+ * {@link SpriteAtlas} image and its index.
+ * <p>
+ * Only PNG and GIF images of at most {@link #MAX_SPRITE_PIXELS} pixels are
+ * packed. Photographic JPEGs and full-page pictures compress far better on
+ * their own than inside a lossless atlas, so they stay separate files and
+ * are loaded one by one. The atlas has an alpha channel only if one of its
+ * sprites does.
+ * <p>
+ * Images are sorted by height, tallest first, and laid out left to right
+ * on shelves of a fixed width; a new shelf starts below the tallest image
+ * of the previous one. The layout only depends on the names and sizes of
+ * the images, so packing the same directory twice gives the same atlas.
+ * <p>
+ * Usage: {@code java AtlasPacker [sourceDir] [atlas.png] [atlas.txt]},
+ * by default {@code resources/images} into {@code resources/atlas}.
+ */
+public class AtlasPacker {
+
+	// width of the atlas; the widest image must fit
+	public static final int WIDTH = 1024;
+
+	// largest image, in pixels, that is packed rather than left on its own
+	public static final int MAX_SPRITE_PIXELS = 64 * 1024;
+
+	// empty pixels around each image so filtered draws never bleed
+	private static final int PAD = 1;
+
+	private static final class Sprite {
+		final String name;
+		final BufferedImage image;
+		int x;
+		int y;
+
+		Sprite(String name, BufferedImage image) {
+			this.name = name;
+			this.image = image;
+		}
+	}
+
+	/**
+	 * Packs every image in a directory.
+	 *
+	 * @param dir the directory of images
+	 * @param png the atlas image to write
+	 * @param index the index to write
+	 * @return the number of images packed
+	 * @throws IOException if an image cannot be read or the atlas written
+	 */
+	public static int pack(File dir, File png, File index) throws IOException {
+		File[] files = dir.listFiles();
+		if (files == null) {
+			throw new IOException("Not a directory: " + dir);
+		}
+		List<Sprite> sprites = new ArrayList<>();
+		for (File f : files) {
+			String n = f.getName().toLowerCase();
+			if (f.isFile() && (n.endsWith(".png") || n.endsWith(".gif"))) {
+				BufferedImage img = ImageIO.read(f);
+				if (img == null) {
+					throw new IOException("Unreadable image: " + f);
+				}
+				if ((long) img.getWidth() * img.getHeight() > MAX_SPRITE_PIXELS) {
+					continue;
+				}
+				if (img.getWidth() + 2 * PAD > WIDTH) {
+					throw new IOException("Image wider than the atlas: " + f);
+				}
+				sprites.add(new Sprite(f.getName(), img));
+			}
+		}
+		sprites.sort((a, b) -> a.image.getHeight() != b.image.getHeight()
+				? b.image.getHeight() - a.image.getHeight()
+				: a.name.compareTo(b.name));
+
+		// shelf layout
+		int x = 0;
+		int y = 0;
+		int shelf = 0;
+		for (Sprite s : sprites) {
+			int w = s.image.getWidth() + 2 * PAD;
+			int h = s.image.getHeight() + 2 * PAD;
+			if (x + w > WIDTH) {
+				x = 0;
+				y += shelf;
+				shelf = 0;
+			}
+			s.x = x + PAD;
+			s.y = y + PAD;
+			x += w;
+			shelf = Math.max(shelf, h);
+		}
+		int height = Math.max(1, y + shelf);
+
+		boolean alpha = false;
+		for (Sprite s : sprites) {
+			alpha |= s.image.getColorModel().hasAlpha();
+		}
+		BufferedImage atlas = new BufferedImage(WIDTH, height,
+				alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = atlas.createGraphics();
+		try {
+			for (Sprite s : sprites) {
+				g.drawImage(s.image, s.x, s.y, null);
+			}
+		} finally {
+			g.dispose();
+		}
+		File parent = png.getAbsoluteFile().getParentFile();
+		if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+			throw new IOException("Cannot create " + parent);
+		}
+		if (!ImageIO.write(atlas, "png", png)) {
+			throw new IOException("No PNG writer");
+		}
+		sprites.sort((a, b) -> a.name.compareTo(b.name));
+		try (PrintWriter out = new PrintWriter(index, StandardCharsets.UTF_8.name())) {
+			out.println("# generated by AtlasPacker from " + dir.getName()
+					+ "; do not edit");
+			out.println("# name x y width height");
+			for (Sprite s : sprites) {
+				out.println(s.name + " " + s.x + " " + s.y + " "
+						+ s.image.getWidth() + " " + s.image.getHeight());
+			}
+		}
+		return sprites.size();
+	}
+
+	public static void main(String[] args) throws IOException {
+		File dir = new File(args.length > 0 ? args[0] : "resources/images");
+		File png = new File(args.length > 1 ? args[1] : "resources/atlas/atlas.png");
+		File index = new File(args.length > 2 ? args[2] : "resources/atlas/atlas.txt");
+		int n = pack(dir, png, index);
+		System.out.println("Packed " + n + " images into " + png + " and " + index);
+	}
+}
@@ -6,6 +6,14 @@ public final class AwtLineDrawer {
     public static void draw(Line line, Graphics g) {
         g.drawLine(line.getStartX(), line.getStartY(), line.getEndX(), line.getEndY());
     }
+
+    public static void draw(Trail trail, Graphics g) {
+        for (int i = 0; i < trail.size(); i++) {
+            if (!trail.isGap(i)) {
+                g.drawLine(trail.getStartX(i), trail.getStartY(i), trail.getEndX(i), trail.getEndY(i));
+            }
+        }
+    }
 }
 
 
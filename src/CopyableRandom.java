@@ -0,0 +1,57 @@
+import java.util.Random;
+
+/**
+ * A {@link Random} whose state can be read and restored in O(1).
+ * <p>
+ * It runs the same 48-bit linear congruential generator as
+ * {@code java.util.Random}, so a given seed yields exactly the same
+ * numbers, but keeps the state in a plain field so simulation snapshots
+ * can save and rewind it.
+ */
+@SuppressWarnings("serial")
+public class CopyableRandom extends Random {
+
+	private static final long MULTIPLIER = 0x5DEECE66DL;
+	private static final long ADDEND = 0xBL;
+	private static final long MASK = (1L << 48) - 1;
+
+	private long state;
+
+	/**
+	 * Creates a generator with the given seed.
+	 *
+	 * @param seed the initial seed
+	 */
+	public CopyableRandom(long seed) {
+		super(seed);
+	}
+
+	@Override
+	public synchronized void setSeed(long seed) {
+		state = (seed ^ MULTIPLIER) & MASK;
+	}
+
+	@Override
+	protected int next(int bits) {
+		state = (state * MULTIPLIER + ADDEND) & MASK;
+		return (int) (state >>> (48 - bits));
+	}
+
+	/**
+	 * Returns the internal state, for {@link #setState(long)}.
+	 *
+	 * @return the current state
+	 */
+	public long getState() {
+		return state;
+	}
+
+	/**
+	 * Rewinds the generator to a state returned by {@link #getState()}.
+	 *
+	 * @param state the state to restore
+	 */
+	public void setState(long state) {
+		this.state = state & MASK;
+	}
+}
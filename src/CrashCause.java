@@ -0,0 +1,7 @@
+/**
+ * What ended a player's run: the court wall, its own trail, another
+ * player's trail, or another player's head.
+ */
+public enum CrashCause {
+    WALL, SELF, TRAIL, HEAD_ON
+}
@@ -0,0 +1,6 @@
+/**
+ * The four directions a player can be steered in.
+ */
+public enum Direction {
+    LEFT, RIGHT, UP, DOWN
+}
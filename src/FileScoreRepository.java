@@ -2,12 +2,16 @@ import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.IntConsumer;
 
-// File-backed repository for high scores
+// File-backed repository for high scores; writes replace the file atomically
 public class FileScoreRepository implements ScoreRepository {
 
     private final String file;
@@ -21,20 +25,26 @@ public class FileScoreRepository implements ScoreRepository {
 
     @Override
     public List<Integer> read() throws IOException {
-        List<Integer> out = new ArrayList<Integer>();
+        final List<Integer> out = new ArrayList<Integer>();
+        forEach(out::add);
+        return out;
+    }
+
+    // Streams the valid lines one at a time, so huge files need no list
+    @Override
+    public void forEach(IntConsumer sink) throws IOException {
         try (BufferedReader in = Files.newBufferedReader(Paths.get(file), StandardCharsets.UTF_8)) {
             String line;
             while ((line = in.readLine()) != null) {
                 String r = line.trim();
                 if (r.isEmpty()) continue;
                 try {
-                    out.add(Integer.parseInt(r));
+                    sink.accept(Integer.parseInt(r));
                 } catch (NumberFormatException ignored) {
                     // skip non-integer lines
                 }
             }
         }
-        return out;
     }
 
     @Override
@@ -42,13 +52,29 @@ public class FileScoreRepository implements ScoreRepository {
         if (scores == null) {
             throw new IllegalArgumentException("scores must not be null");
         }
-        try (BufferedWriter out = Files.newBufferedWriter(Paths.get(file), StandardCharsets.UTF_8)) {
-            for (int i = 0; i < scores.size(); i++) {
-                out.write(Integer.toString(scores.get(i)));
-                if (i != scores.size() - 1) {
-                    out.write(System.lineSeparator());
+        Path target = Paths.get(file).toAbsolutePath();
+        if (Files.isDirectory(target)) {
+            throw new IOException("not a file: " + file);
+        }
+        // write a sibling temp file and rename it over the target, so readers
+        // and crashes only ever see the old or the new list
+        Path tmp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                for (int i = 0; i < scores.size(); i++) {
+                    out.write(Integer.toString(scores.get(i)));
+                    if (i != scores.size() - 1) {
+                        out.write(System.lineSeparator());
+                    }
                 }
             }
+            try {
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
         }
     }
 }
@@ -0,0 +1,162 @@
+import java.awt.Color;
+
+/**
+ * What a renderer needs of one simulation step: every head, where it
+ * started its last move, and the trails as of that step.
+ * <p>
+ * Trails are O(1) copy-on-write copies of the players' own {@link Trail}s,
+ * so a renderer finds the segments added since the frame it drew last by
+ * comparing sizes, and no segment is lost when it skips frames. A frame is
+ * filled by the simulation thread while it is the back buffer of a
+ * {@link FrameExchange} and only read once published, so readers see it as
+ * immutable.
+ */
+public class Frame {
+
+	private static final Trail[] NO_TRAILS = new Trail[0];
+
+	// the same for every frame of a match until it is rewound; only compared
+	private Object match;
+	private long tick;
+	// System.nanoTime() when the step was taken
+	private long time;
+	private int count;
+	private int[] x = new int[0];
+	private int[] y = new int[0];
+	private int[] prevX = new int[0];
+	private int[] prevY = new int[0];
+	private boolean[] alive = new boolean[0];
+	private Color[] colors = new Color[0];
+	private Trail[] trails = NO_TRAILS;
+
+	// fills the frame from the players after a step; null players are left
+	// out as dead heads with empty trails
+	void capture(Player[] players, Object match, long tick, long time) {
+		int n = players.length;
+		if (x.length < n) {
+			x = new int[n];
+			y = new int[n];
+			prevX = new int[n];
+			prevY = new int[n];
+			alive = new boolean[n];
+			colors = new Color[n];
+			Trail[] grown = new Trail[n];
+			System.arraycopy(trails, 0, grown, 0, trails.length);
+			for (int i = trails.length; i < n; i++) {
+				grown[i] = new Trail();
+			}
+			trails = grown;
+		}
+		for (int i = 0; i < n; i++) {
+			Player p = players[i];
+			if (p == null) {
+				alive[i] = false;
+				colors[i] = null;
+				trails[i].clear();
+				continue;
+			}
+			x[i] = p.x;
+			y[i] = p.y;
+			prevX[i] = p.prevX;
+			prevY[i] = p.prevY;
+			alive[i] = p.getAlive();
+			colors[i] = p.color;
+			trails[i].restore(p.getPath());
+		}
+		this.match = match;
+		this.tick = tick;
+		this.time = time;
+		this.count = n;
+	}
+
+	/**
+	 * Returns an object that is the same for every frame of one match,
+	 * until the match is rewound to a snapshot.
+	 *
+	 * @return the match identity
+	 */
+	public Object getMatch() {
+		return match;
+	}
+
+	/**
+	 * Returns the step the frame was captured after.
+	 *
+	 * @return the step count
+	 */
+	public long getTick() {
+		return tick;
+	}
+
+	/**
+	 * Returns when the step was taken, in {@link System#nanoTime()} units.
+	 *
+	 * @return the capture time
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * Returns the number of player slots in the frame.
+	 *
+	 * @return the player count
+	 */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * Returns a player's trail as of this frame. It must not be changed.
+	 *
+	 * @param i the spawn index
+	 * @return the trail
+	 */
+	public Trail getTrail(int i) {
+		return trails[i];
+	}
+
+	/**
+	 * Returns a player's color, or null for an empty slot.
+	 *
+	 * @param i the spawn index
+	 * @return the color
+	 */
+	public Color getColor(int i) {
+		return colors[i];
+	}
+
+	/**
+	 * Checks whether a player was alive after the step.
+	 *
+	 * @param i the spawn index
+	 * @return true if the player was alive
+	 */
+	public boolean isAlive(int i) {
+		return alive[i];
+	}
+
+	/**
+	 * Returns a head's X position the given fraction of the way through
+	 * its last move.
+	 *
+	 * @param i the spawn index
+	 * @param fraction 0 for where the move started, 1 for where it ended
+	 * @return the X coordinate
+	 */
+	public int getX(int i, double fraction) {
+		return prevX[i] + (int) Math.round((x[i] - prevX[i]) * fraction);
+	}
+
+	/**
+	 * Returns a head's Y position the given fraction of the way through
+	 * its last move.
+	 *
+	 * @param i the spawn index
+	 * @param fraction 0 for where the move started, 1 for where it ended
+	 * @return the Y coordinate
+	 */
+	public int getY(int i, double fraction) {
+		return prevY[i] + (int) Math.round((y[i] - prevY[i]) * fraction);
+	}
+}
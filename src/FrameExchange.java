@@ -0,0 +1,57 @@
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lock-free triple buffer that hands {@link Frame}s from the simulation
+ * thread to a render thread.
+ * <p>
+ * The writer fills the back frame and publishes it by swapping it with the
+ * middle one; the reader takes the middle frame by swapping it with the one
+ * it drew last. Each swap is a single atomic exchange, so neither side ever
+ * waits for the other, the writer never touches a frame being read, and
+ * the reader always gets the newest complete frame. Frames are reused, so
+ * publishing allocates nothing once the frames have grown to the player
+ * count.
+ * <p>
+ * There must be one writer thread and one reader thread at a time.
+ */
+public class FrameExchange {
+
+	// set in the middle index when it holds a frame the reader has not taken
+	private static final int FRESH = 4;
+
+	private final Frame[] frames = {new Frame(), new Frame(), new Frame()};
+	private final AtomicInteger middle = new AtomicInteger(2);
+	// owned by the writer
+	private int back = 0;
+	// owned by the reader
+	private int front = 1;
+
+	/**
+	 * Returns the frame the writer fills next.
+	 *
+	 * @return the back frame
+	 */
+	public Frame back() {
+		return frames[back];
+	}
+
+	/**
+	 * Publishes the back frame; the writer gets another one to fill.
+	 */
+	public void publish() {
+		back = middle.getAndSet(back | FRESH) & 3;
+	}
+
+	/**
+	 * Returns the newest published frame. It stays valid until the next
+	 * call from the reader.
+	 *
+	 * @return the latest frame, or an empty frame before the first publish
+	 */
+	public Frame latest() {
+		if ((middle.get() & FRESH) != 0) {
+			front = middle.getAndSet(front) & 3;
+		}
+		return frames[front];
+	}
+}
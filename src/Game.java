@@ -10,8 +10,16 @@ public class Game implements Runnable {
 	// true if the high scores are displayed in the frame
 	private boolean scoresOn = false;
 	
+	// the levels, each built the first time it is selected
+	private TronMapSurvival levelSurv;
+	private TronMapTwoPlayer levelTwoPlayer;
+	private TronMapStory levelStory;
+	
 	public void run() {
 	   
+      // decodes the images in the background if main() has not already
+      AssetLoader.preloadAll();
+      
       // Top-level frame
       final JFrame frame = new JFrame("Tron");
       frame.setBackground(Color.BLACK);
@@ -43,13 +51,13 @@ public class Game implements Runnable {
       topMenu.setBackground(Color.BLACK);
       
       // buttons for main menu
-	  final JButton play = new JButton(new ImageIcon(Picture.class.getResource("/images/play_before.png")));
+	  final JButton play = new JButton(AssetLoader.icon("play_before.png"));
 	  topMenu.add(play);
 	  final JButton instructions = new JButton(
-			  new ImageIcon(Picture.class.getResource("/images/instructions_before.png")));
+			  AssetLoader.icon("instructions_before.png"));
 	  topMenu.add(instructions);
 	  final JButton quit = new JButton(
-			  new ImageIcon(Picture.class.getResource("/images/quit_before.png")));
+			  AssetLoader.icon("quit_before.png"));
 	  topMenu.add(quit);
 	  
 	  // adds components to the main menu panel
@@ -89,11 +97,11 @@ public class Game implements Runnable {
 	  modes.setBackground(Color.BLACK);
 	  
 	  // buttons for playMenuUpper
-	  final JButton story = new JButton(new ImageIcon(Picture.class.getResource("/images/story.png")));
+	  final JButton story = new JButton(AssetLoader.icon("story.png"));
 	  modes.add(story);
-	  final JButton survival = new JButton(new ImageIcon(Picture.class.getResource("/images/survival.png")));
+	  final JButton survival = new JButton(AssetLoader.icon("survival.png"));
 	  modes.add(survival);
-	  final JButton twoPlayer = new JButton(new ImageIcon(Picture.class.getResource("/images/two_player.png")));
+	  final JButton twoPlayer = new JButton(AssetLoader.icon("two_player.png"));
 	  modes.add(twoPlayer);
 	  
 	  // an image to be displayed by playMenuUpper
@@ -114,9 +122,9 @@ public class Game implements Runnable {
 	  bottomMenu.setBackground(Color.BLACK);
 	  
 	  // buttons for bottomMenu
-	  final JButton highScores = new JButton(new ImageIcon(Picture.class.getResource("/images/high_scores.png")));
+	  final JButton highScores = new JButton(AssetLoader.icon("high_scores.png"));
 	  bottomMenu.add(highScores);
-	  final JButton back = new JButton(new ImageIcon(Picture.class.getResource("/images/main_menu.png")));
+	  final JButton back = new JButton(AssetLoader.icon("main_menu.png"));
 	  bottomMenu.add(back);
 	  
 	  // adds bottomMenu and playMenuUpper to playMenu
@@ -141,15 +149,11 @@ public class Game implements Runnable {
 	  
 	  
 	  // buttons for returning to the menu and reseting the game
-	  final JButton reset = new JButton(new ImageIcon(Picture.class.getResource("/images/restart.png")));
+	  final JButton reset = new JButton(AssetLoader.icon("restart.png"));
 	  survMenu.add(reset);
-	  final JButton exit = new JButton(new ImageIcon(Picture.class.getResource("/images/play_before.png")));
+	  final JButton exit = new JButton(AssetLoader.icon("play_before.png"));
 	  survMenu.add(exit);
 	  
-	  // the survival level
-      final TronMapSurvival levelSurv = new TronMapSurvival(score, 1);
-      levelSurv.setBorder(BorderFactory.createLineBorder(Color.WHITE));
-      
       /**
        * 
        *  Two-player Level Menu
@@ -177,16 +181,11 @@ public class Game implements Runnable {
 	  twoMenu.add(scoresTwo);
 	  
 	  // the reset and main menu buttons for two-player mode
-	  final JButton resetTwo = new JButton(new ImageIcon(Picture.class.getResource("/images/restart.png")));
+	  final JButton resetTwo = new JButton(AssetLoader.icon("restart.png"));
 	  twoMenu.add(resetTwo);
-	  final JButton exitTwo = new JButton(new ImageIcon(Picture.class.getResource("/images/play_before.png")));
+	  final JButton exitTwo = new JButton(AssetLoader.icon("play_before.png"));
 	  twoMenu.add(exitTwo);
 	  
-	  // the two-player level
-      final TronMapTwoPlayer levelTwoPlayer = 
-    		  new TronMapTwoPlayer(scoreTwo1, scoreTwo2, 2);
-      levelTwoPlayer.setBorder(BorderFactory.createLineBorder(Color.WHITE));
-	 
       /**
        * 
        *  Story Level Menu
@@ -216,16 +215,11 @@ public class Game implements Runnable {
 	  storyMenu.add(scoresStory);
 	  
 	  // buttons for reseting the game and returning to the play menu
-	  final JButton resetStory = new JButton(new ImageIcon(Picture.class.getResource("/images/restart.png")));
+	  final JButton resetStory = new JButton(AssetLoader.icon("restart.png"));
 	  storyMenu.add(resetStory);
-	  final JButton exitStory = new JButton(new ImageIcon(Picture.class.getResource("/images/play_before.png")));
+	  final JButton exitStory = new JButton(AssetLoader.icon("play_before.png"));
 	  storyMenu.add(exitStory);
 	  
-	  // the story level
-      final TronMapStory levelStory = 
-    		  new TronMapStory(scoreStory1, scoreStory2, 2);
-      levelStory.setBorder(BorderFactory.createLineBorder(Color.WHITE));
-      
       /**
        *						    										
        *  Adding action listeners 					
@@ -246,11 +240,11 @@ public class Game implements Runnable {
 				  mainMenu.remove(instrPict);
 				  mainMenu.add(pict);
 				  instructions.setIcon(
-						  new ImageIcon(Picture.class.getResource("/images/instructions_before.png")));
+						  AssetLoader.icon("instructions_before.png"));
 			  } else if (!instructOn) {
 				  mainMenu.remove(pict);
 				  mainMenu.add(instrPict);
-				  instructions.setIcon(new ImageIcon(Picture.class.getResource("/images/main_menu.png")));
+				  instructions.setIcon(AssetLoader.icon("main_menu.png"));
 			  }
 			  mainMenu.revalidate();
 			  frame.repaint();
@@ -272,7 +266,7 @@ public class Game implements Runnable {
 				  playMenuUpper.add(menuPict);
 			  } else if (!scoresOn) {
 				  playMenuUpper.remove(menuPict);
-				  playMenuUpper.add(levelSurv.getHighs());
+				  playMenuUpper.add(survivalLevel(score).getHighs());
 			  }
 			  scoresOn = !scoresOn;
 			  playMenuUpper.revalidate();
@@ -290,6 +284,7 @@ public class Game implements Runnable {
 	  
 	  survival.addActionListener(new ActionListener() {
 		  public void actionPerformed(ActionEvent e) {
+			  survivalLevel(score);
 			  frame.remove(playMenu);
 			  frame.setLayout(new BorderLayout());
 			  frame.add(levelSurv, BorderLayout.CENTER);
@@ -297,7 +292,7 @@ public class Game implements Runnable {
 			  frame.update(frame.getGraphics());
 			  levelSurv.requestFocusInWindow();
 			  levelSurv.revalidate();
-			  levelSurv.reset();
+			  levelSurv.activate();
 		  }
 	  });
 
@@ -310,6 +305,7 @@ public class Game implements Runnable {
 	  
 	  exit.addActionListener(new ActionListener() {
 		  public void actionPerformed(ActionEvent e) {
+			  levelSurv.suspend();
 			  frame.remove(levelSurv);
 			  frame.remove(survMenu);
 			  frame.add(playMenu);
@@ -320,6 +316,7 @@ public class Game implements Runnable {
 	  
 	  twoPlayer.addActionListener(new ActionListener() {
 		  public void actionPerformed(ActionEvent e) {
+			  twoPlayerLevel(scoreTwo1, scoreTwo2);
 			  frame.remove(playMenu);
 			  frame.setLayout(new BorderLayout());
 			  frame.add(levelTwoPlayer, BorderLayout.CENTER);
@@ -327,7 +324,7 @@ public class Game implements Runnable {
 			  frame.update(frame.getGraphics());
 			  levelTwoPlayer.requestFocusInWindow();
 			  levelTwoPlayer.revalidate();
-			  levelTwoPlayer.reset();
+			  levelTwoPlayer.activate();
 		  }
 	  });
 	  
@@ -339,6 +336,7 @@ public class Game implements Runnable {
 	  
 	  exitTwo.addActionListener(new ActionListener() {
 		  public void actionPerformed(ActionEvent e) {
+			  levelTwoPlayer.suspend();
 			  frame.remove(levelTwoPlayer);
 			  frame.remove(twoMenu);
 			  frame.add(playMenu);
@@ -350,6 +348,7 @@ public class Game implements Runnable {
 	  
 	  story.addActionListener(new ActionListener() {
 		  public void actionPerformed(ActionEvent e) {
+			  storyLevel(scoreStory1, scoreStory2);
 			  frame.remove(playMenu);
 			  frame.setLayout(new BorderLayout());
 			  frame.add(levelStory, BorderLayout.CENTER);
@@ -357,7 +356,7 @@ public class Game implements Runnable {
 			  frame.update(frame.getGraphics());
 			  levelStory.requestFocusInWindow();
 			  levelStory.revalidate();
-			  levelStory.reset();
+			  levelStory.activate();
 		  }
 	  });
 	  
@@ -370,6 +369,7 @@ public class Game implements Runnable {
 	  exitStory.addActionListener(new ActionListener() {
 		  public void actionPerformed(ActionEvent e) {
 			 // frame.setLayout(null);
+			  levelStory.suspend();
 			  frame.remove(levelStory);
 			  frame.remove(storyMenu);
 			  frame.add(playMenu);
@@ -378,21 +378,56 @@ public class Game implements Runnable {
 		  }
 	  });
 	  
-      // put the frame on the screen
+	  // releases the levels that were built when the window closes
+	  frame.addWindowListener(new WindowAdapter() {
+		  public void windowClosing(WindowEvent e) {
+			  for (TronMap level : new TronMap[] {levelSurv, levelTwoPlayer, levelStory}) {
+				  if (level != null) {
+					  level.dispose();
+				  }
+			  }
+		  }
+	  });
+	  
+      // put the frame on the screen; levels start when they are selected
       frame.pack();
       frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
       frame.setVisible(true);
-
-      // start the game running
-      levelSurv.reset();
-      levelTwoPlayer.reset();
-      levelStory.reset();
+   }
+   
+   // returns the survival level, building it on first use
+   private TronMapSurvival survivalLevel(JLabel score) {
+	   if (levelSurv == null) {
+		   levelSurv = new TronMapSurvival(score, 1);
+		   levelSurv.setBorder(BorderFactory.createLineBorder(Color.WHITE));
+	   }
+	   return levelSurv;
+   }
+   
+   // returns the two player level, building it on first use
+   private TronMapTwoPlayer twoPlayerLevel(JLabel score1, JLabel score2) {
+	   if (levelTwoPlayer == null) {
+		   levelTwoPlayer = new TronMapTwoPlayer(score1, score2, 2);
+		   levelTwoPlayer.setBorder(BorderFactory.createLineBorder(Color.WHITE));
+	   }
+	   return levelTwoPlayer;
+   }
+   
+   // returns the story level, building it on first use
+   private TronMapStory storyLevel(JLabel score1, JLabel score2) {
+	   if (levelStory == null) {
+		   levelStory = new TronMapStory(score1, score2, 2);
+		   levelStory.setBorder(BorderFactory.createLineBorder(Color.WHITE));
+	   }
+	   return levelStory;
    }
    
    /*
     * Get the game started!
     */
    public static void main(String[] args) {
+       // decode images while the event thread builds the frame
+       AssetLoader.preloadAll();
        SwingUtilities.invokeLater(new Game());
    }
 }
@@ -1,7 +1,6 @@
 
 
 import java.awt.Graphics;
-import java.util.ArrayList;
 
 public abstract class GameObject {
 	int x; // x and y coordinates upper left
@@ -71,7 +70,9 @@ public abstract class GameObject {
 	}
 
 	/**
-	 * Compute whether an object intersects a shape.
+	 * Compute whether an object's head overlaps another object's head.
+	 * Trails are not scanned here; they are checked against the arena's
+	 * {@link OccupancyGrid}.
 	 * 
 	 * @param other
 	 *            The other game object to test for intersection with.
@@ -87,26 +88,6 @@ public abstract class GameObject {
 				return Intersection.UP;
 			}
 		}
-		ArrayList<Shape> pa = other.getPath();
-		for (int i = 0; i < pa.size() - 1; i++) {
-			Shape k = pa.get(i);
-			int x1 = k.getStartX();
-			int y1 = k.getStartY();
-			int x2 = k.getEndX();
-			int y2 = k.getEndY();
-
-			if (y1 == y2) {
-				if (Math.abs(y1 - y) <= height/2 && 
-					(x >= Math.min(x1, x2) && x <= Math.max(x1, x2))) {
-					return Intersection.UP;
-				}
-			} else if (x1 == x2) {
-				if (Math.abs(x1 - x) <= width/2 &&
-					(y >= Math.min(y1, y2) && y <= Math.max(y1, y2))) {					
-					return Intersection.UP;
-				}
-			}
-		}
 		return Intersection.NONE;
 	}
 	
@@ -119,8 +100,8 @@ public abstract class GameObject {
 	// returns true if the player is alive
 	public abstract boolean getAlive();
 	
-	// returns the player's path as a list of shapes
-	public abstract ArrayList<Shape> getPath();
+	// returns the player's path as packed segments
+	public abstract Trail getPath();
 }
 
 
@@ -0,0 +1,230 @@
+import java.awt.image.BufferedImage;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Concurrent image cache bounded by the bytes of decoded pixels.
+ * <p>
+ * Lookups go through a {@link ConcurrentHashMap}, so readers never queue
+ * on a shared monitor. Every hit stamps the entry from a global use
+ * counter. When an insert takes the cache over its budget, the least
+ * recently stamped entries are evicted until it fits again. Eviction scans
+ * the entries, which is cheap for the few dozen images a game holds, and
+ * is serialized so two threads never evict for the same overflow. An
+ * image larger than the whole budget is returned but not kept.
+ * <p>
+ * Hits, misses, evictions and the time spent loading are counted with
+ * low-contention adders and can be read at any time.
+ */
+public class ImageCache {
+
+	private static final class Entry {
+		final BufferedImage image;
+		final long bytes;
+		volatile long used;
+
+		Entry(BufferedImage image, long bytes, long used) {
+			this.image = image;
+			this.bytes = bytes;
+			this.used = used;
+		}
+	}
+
+	private final long budget;
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+	private final AtomicLong bytes = new AtomicLong();
+	private final AtomicLong clock = new AtomicLong();
+	private final Object evictLock = new Object();
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	private final LongAdder loadNanos = new LongAdder();
+
+	/**
+	 * Creates an empty cache.
+	 *
+	 * @param budget the most pixel bytes to keep
+	 */
+	public ImageCache(long budget) {
+		if (budget <= 0) {
+			throw new IllegalArgumentException("budget must be positive");
+		}
+		this.budget = budget;
+	}
+
+	/**
+	 * Returns a cached image, loading it on a miss.
+	 *
+	 * @param key the image name
+	 * @param loader loads the image for a name, returning null on failure
+	 * @return the image, or null if it is not cached and could not be loaded
+	 */
+	public BufferedImage get(String key, Function<String, BufferedImage> loader) {
+		Entry e = entries.get(key);
+		if (e != null) {
+			hits.increment();
+			e.used = clock.incrementAndGet();
+			return e.image;
+		}
+		misses.increment();
+		long start = System.nanoTime();
+		BufferedImage img = loader.apply(key);
+		loadNanos.add(System.nanoTime() - start);
+		if (img == null) {
+			return null;
+		}
+		Entry fresh = new Entry(img, sizeOf(img), clock.incrementAndGet());
+		if (fresh.bytes > budget) {
+			// keeping it would evict everything else and then itself
+			return img;
+		}
+		Entry raced = entries.putIfAbsent(key, fresh);
+		if (raced != null) {
+			// another thread loaded it meanwhile; keep theirs
+			return raced.image;
+		}
+		if (bytes.addAndGet(fresh.bytes) > budget) {
+			evict();
+		}
+		return img;
+	}
+
+	/**
+	 * Returns a cached image without loading or counting.
+	 *
+	 * @param key the image name
+	 * @return the image, or null if it is not cached
+	 */
+	public BufferedImage peek(String key) {
+		Entry e = entries.get(key);
+		return e == null ? null : e.image;
+	}
+
+	/**
+	 * Drops every image.
+	 */
+	public void clear() {
+		synchronized (evictLock) {
+			for (Map.Entry<String, Entry> e : entries.entrySet()) {
+				if (entries.remove(e.getKey(), e.getValue())) {
+					bytes.addAndGet(-e.getValue().bytes);
+				}
+			}
+		}
+	}
+
+	// removes least recently used entries until the cache fits its budget
+	private void evict() {
+		synchronized (evictLock) {
+			while (bytes.get() > budget) {
+				String oldest = null;
+				Entry victim = null;
+				for (Map.Entry<String, Entry> e : entries.entrySet()) {
+					if (victim == null || e.getValue().used < victim.used) {
+						oldest = e.getKey();
+						victim = e.getValue();
+					}
+				}
+				if (victim == null) {
+					return;
+				}
+				if (entries.remove(oldest, victim)) {
+					bytes.addAndGet(-victim.bytes);
+					evictions.increment();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the bytes of decoded pixels an image holds.
+	 *
+	 * @param img the image
+	 * @return its size in bytes
+	 */
+	public static long sizeOf(BufferedImage img) {
+		int bits = img.getColorModel().getPixelSize();
+		return (long) img.getWidth() * img.getHeight() * ((bits + 7) / 8);
+	}
+
+	/**
+	 * Returns the pixel bytes the cache may hold.
+	 *
+	 * @return the budget
+	 */
+	public long getBudget() {
+		return budget;
+	}
+
+	/**
+	 * Returns the pixel bytes currently held.
+	 *
+	 * @return the cached bytes
+	 */
+	public long getBytes() {
+		return bytes.get();
+	}
+
+	/**
+	 * Returns the number of cached images.
+	 *
+	 * @return the entry count
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Returns the number of lookups answered from the cache.
+	 *
+	 * @return the hit count
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * Returns the number of lookups that had to load.
+	 *
+	 * @return the miss count
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * Returns the number of images dropped to stay within the budget.
+	 *
+	 * @return the eviction count
+	 */
+	public long getEvictions() {
+		return evictions.sum();
+	}
+
+	/**
+	 * Returns the total time spent in the loader.
+	 *
+	 * @return the load time in nanoseconds
+	 */
+	public long getLoadNanos() {
+		return loadNanos.sum();
+	}
+
+	/**
+	 * Formats the counters on one line.
+	 *
+	 * @return the statistics
+	 */
+	@Override
+	public String toString() {
+		return String.format(Locale.ROOT,
+				"images=%d bytes=%d/%d hits=%d misses=%d evictions=%d load=%.1fms",
+				size(), getBytes(), budget, getHits(), getMisses(), getEvictions(),
+				getLoadNanos() / 1e6);
+	}
+}
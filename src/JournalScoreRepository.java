@@ -0,0 +1,402 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+import java.util.zip.CRC32;
+
+// Journaled repository for the history of scores. Every new score is
+// appended to a log as one fixed-size record, and a snapshot file holds how
+// many times each score was reached. Once the log holds enough records, it
+// is set aside and a background thread folds it into a new snapshot, so
+// opening the store reads the snapshot and a short log tail rather than
+// every score ever recorded. read() returns the top scores; forEach()
+// streams the whole history.
+//
+// Log record, 16 bytes big-endian: sequence number (long), score (int) and a
+// CRC-32 of the first 12 bytes (int). A torn or corrupt record ends the log.
+// Snapshot: magic "TRNJ", version, the last sequence number folded into it,
+// the count of entries, the entries in descending order of score, then a
+// CRC-32 of all that. Version 3 entries are (score int, times long) pairs,
+// so the snapshot grows with the distinct scores, not the runs; version 2
+// entries hold the times as an int and version 1 entries are single scores.
+// Records at or below the snapshot's sequence number are already in it, so a
+// crash between writing a snapshot and dropping a log never counts a score
+// twice.
+public class JournalScoreRepository implements ScoreRepository, Closeable {
+
+    // number of top scores read() returns
+    public static final int DEFAULT_KEEP = 10;
+    // log records that trigger a compaction
+    public static final int DEFAULT_COMPACT_RECORDS = 1024;
+
+    static final int RECORD = 16;
+    private static final int MAGIC = 0x54524E4A; // "TRNJ"
+    private static final int VERSION = 3;
+
+    private final Path snapshot;
+    private final Path log;
+    // the log being folded into a snapshot, or left by an interrupted compaction
+    private final Path oldLog;
+    private final int keep;
+    private final int compactRecords;
+    private final ExecutorService compactor;
+    // held while replacing the snapshot file
+    private final Object snapshotLock = new Object();
+
+    // guarded by this
+    private boolean loaded;
+    private boolean closed;
+    private boolean compacting;
+    private FileChannel out;
+    private long seq;
+    private long logRecords;
+    // how many times each score was recorded
+    private final TreeMap<Integer, Long> counts = new TreeMap<Integer, Long>();
+
+    // guarded by snapshotLock: sequence number of the installed snapshot
+    private long snapshotSeq = -1;
+
+    // Stores the journal as <base>.snap and <base>.log
+    public JournalScoreRepository(String base) {
+        this(path(base, ".snap"), path(base, ".log"), DEFAULT_KEEP, DEFAULT_COMPACT_RECORDS);
+    }
+
+    public JournalScoreRepository(Path snapshot, Path log, int keep, int compactRecords) {
+        if (snapshot == null || log == null) {
+            throw new IllegalArgumentException("snapshot and log paths must not be null");
+        }
+        if (keep <= 0 || compactRecords <= 0) {
+            throw new IllegalArgumentException("keep and compactRecords must be positive");
+        }
+        this.snapshot = snapshot.toAbsolutePath();
+        this.log = log.toAbsolutePath();
+        this.oldLog = Paths.get(this.log + ".old");
+        this.keep = keep;
+        this.compactRecords = compactRecords;
+        this.compactor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "ScoreCompactor");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    private static Path path(String base, String suffix) {
+        if (base == null || base.isEmpty()) {
+            throw new IllegalArgumentException("base path must not be null/empty");
+        }
+        return Paths.get(base + suffix);
+    }
+
+    // Checks whether the journal has never been written
+    public boolean isEmpty() {
+        return !Files.exists(snapshot) && !Files.exists(log) && !Files.exists(oldLog);
+    }
+
+    @Override
+    public synchronized List<Integer> read() throws IOException {
+        open();
+        List<Integer> scores = new ArrayList<Integer>(keep);
+        for (Map.Entry<Integer, Long> e : counts.descendingMap().entrySet()) {
+            for (long n = e.getValue(); n > 0 && scores.size() < keep; n--) {
+                scores.add(e.getKey());
+            }
+            if (scores.size() == keep) {
+                break;
+            }
+        }
+        return scores;
+    }
+
+    // Streams every score recorded, highest first
+    @Override
+    public synchronized void forEach(IntConsumer sink) throws IOException {
+        open();
+        for (Map.Entry<Integer, Long> e : counts.descendingMap().entrySet()) {
+            int score = e.getKey();
+            for (long n = e.getValue(); n > 0; n--) {
+                sink.accept(score);
+            }
+        }
+    }
+
+    // Streams each distinct score once with its count, highest first
+    @Override
+    public synchronized void forEachCount(CountSink sink) throws IOException {
+        open();
+        for (Map.Entry<Integer, Long> e : counts.descendingMap().entrySet()) {
+            sink.accept(e.getKey(), e.getValue());
+        }
+    }
+
+    // Replaces the whole store with the given scores
+    @Override
+    public synchronized void write(List<Integer> scores) throws IOException {
+        if (scores == null) {
+            throw new IllegalArgumentException("scores must not be null");
+        }
+        open();
+        counts.clear();
+        for (Integer v : scores) {
+            insert(v == null ? 0 : v, 1);
+        }
+        installSnapshot(entries(), ++seq);
+        // the snapshot covers every record; readers skip them anyway
+        out.truncate(0);
+        logRecords = 0;
+    }
+
+    // Appends one record; the scores are kept here, so the top list is not needed
+    @Override
+    public synchronized void add(int score, List<Integer> ignored) throws IOException {
+        open();
+        ByteBuffer record = ByteBuffer.allocate(RECORD);
+        record.putLong(++seq).putInt(score);
+        record.putInt(crc(record.array(), RECORD - 4));
+        record.flip();
+        while (record.hasRemaining()) {
+            out.write(record);
+        }
+        insert(score, 1);
+        if (++logRecords >= compactRecords && !compacting) {
+            startCompaction();
+        }
+    }
+
+    // Folds the log into the snapshot now and waits for it
+    public void compact() throws IOException {
+        boolean started = false;
+        while (!started) {
+            synchronized (this) {
+                open();
+                if (!compacting) {
+                    startCompaction();
+                    started = true;
+                }
+            }
+            // wait for the compaction just started, or the one in the way
+            try {
+                compactor.submit(() -> { }).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted while compacting");
+            } catch (ExecutionException e) {
+                throw new IOException(e.getCause());
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (out != null) {
+                out.close();
+            }
+        }
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // loads the snapshot and replays the logs on first use
+    private void open() throws IOException {
+        if (closed) {
+            throw new IOException("repository is closed");
+        }
+        if (loaded) {
+            return;
+        }
+        long folded = readSnapshot();
+        long last = Math.max(folded, replay(oldLog, folded, false));
+        seq = Math.max(last, replay(log, folded, true));
+        out = FileChannel.open(log, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        loaded = true;
+        if (Files.exists(oldLog)) {
+            // an earlier compaction did not finish; finish it from memory
+            installSnapshot(entries(), seq);
+            Files.deleteIfExists(oldLog);
+            out.truncate(0);
+            logRecords = 0;
+        }
+    }
+
+    // reads the snapshot into the counts and returns its sequence number
+    private long readSnapshot() throws IOException {
+        counts.clear();
+        if (!Files.exists(snapshot)) {
+            return 0;
+        }
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(snapshot));
+        if (in.remaining() < 24 || in.getInt() != MAGIC) {
+            throw new IOException("not a score snapshot: " + snapshot);
+        }
+        int version = in.getInt();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("unsupported score snapshot version: " + snapshot);
+        }
+        int entry = version == 1 ? 4 : version == 2 ? 8 : 12;
+        long folded = in.getLong();
+        int count = in.getInt();
+        if (count < 0 || in.remaining() != (long) entry * count + 4) {
+            throw new IOException("corrupt score snapshot: " + snapshot);
+        }
+        int end = in.limit() - 4;
+        if (crc(in.array(), end) != in.getInt(end)) {
+            throw new IOException("corrupt score snapshot: " + snapshot);
+        }
+        for (int i = 0; i < count; i++) {
+            int score = in.getInt();
+            long times = version == 1 ? 1 : version == 2 ? in.getInt() : in.getLong();
+            if (times <= 0) {
+                throw new IOException("corrupt score snapshot: " + snapshot);
+            }
+            insert(score, times);
+        }
+        synchronized (snapshotLock) {
+            snapshotSeq = folded;
+        }
+        return folded;
+    }
+
+    // applies the records of a log that the snapshot does not hold yet and
+    // returns the last sequence number seen; a live log loses its torn tail
+    private long replay(Path file, long folded, boolean live) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        // logs are compacted at a few thousand records, so reading one whole is cheap
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file));
+        long last = 0;
+        while (in.remaining() >= RECORD) {
+            int at = in.position();
+            long s = in.getLong();
+            int score = in.getInt();
+            if (crc(in.array(), at, RECORD - 4) != in.getInt()) {
+                in.position(at);
+                break;
+            }
+            last = Math.max(last, s);
+            if (s > folded) {
+                insert(score, 1);
+                if (live) {
+                    logRecords++;
+                }
+            }
+        }
+        if (live && in.position() < in.limit()) {
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                ch.truncate(in.position());
+            }
+        }
+        return last;
+    }
+
+    // sets the live log aside and folds it in on the compactor thread;
+    // called holding this
+    private void startCompaction() throws IOException {
+        if (!Files.exists(oldLog)) {
+            out.close();
+            Files.move(log, oldLog, StandardCopyOption.ATOMIC_MOVE);
+            out = FileChannel.open(log, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+        logRecords = 0;
+        compacting = true;
+        final long[] entries = entries();
+        final long upTo = seq;
+        compactor.execute(() -> {
+            try {
+                installSnapshot(entries, upTo);
+                Files.deleteIfExists(oldLog);
+            } catch (IOException e) {
+                System.err.println("Failed to compact high scores (" + e + ")");
+            } finally {
+                synchronized (JournalScoreRepository.this) {
+                    compacting = false;
+                }
+            }
+        });
+    }
+
+    // writes a snapshot next to the old one and renames it into place, unless
+    // a newer snapshot is already installed
+    private void installSnapshot(long[] entries, long upTo) throws IOException {
+        synchronized (snapshotLock) {
+            if (upTo <= snapshotSeq) {
+                return;
+            }
+            ByteBuffer buf = ByteBuffer.allocate(20 + 12 * (entries.length / 2) + 4);
+            buf.putInt(MAGIC).putInt(VERSION).putLong(upTo).putInt(entries.length / 2);
+            for (int i = 0; i < entries.length; i += 2) {
+                buf.putInt((int) entries[i]).putLong(entries[i + 1]);
+            }
+            buf.putInt(crc(buf.array(), buf.position()));
+            buf.flip();
+            Path tmp = Files.createTempFile(snapshot.getParent(), snapshot.getFileName().toString(), ".tmp");
+            try {
+                try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                    while (buf.hasRemaining()) {
+                        ch.write(buf);
+                    }
+                    ch.force(true);
+                }
+                try {
+                    Files.move(tmp, snapshot, StandardCopyOption.ATOMIC_MOVE,
+                            StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tmp, snapshot, StandardCopyOption.REPLACE_EXISTING);
+                }
+                snapshotSeq = upTo;
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        }
+    }
+
+    private void insert(int score, long times) {
+        counts.merge(score, times, Long::sum);
+    }
+
+    // the counts as (score, times) pairs, highest score first
+    private long[] entries() {
+        long[] out = new long[2 * counts.size()];
+        int i = 0;
+        for (Map.Entry<Integer, Long> e : counts.descendingMap().entrySet()) {
+            out[i++] = e.getKey();
+            out[i++] = e.getValue();
+        }
+        return out;
+    }
+
+    private static int crc(byte[] b, int length) {
+        return crc(b, 0, length);
+    }
+
+    private static int crc(byte[] b, int offset, int length) {
+        CRC32 c = new CRC32();
+        c.update(b, offset, length);
+        return (int) c.getValue();
+    }
+}
@@ -0,0 +1,100 @@
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+// Counts every score ever recorded in a Fenwick tree with one bucket per
+// score value, so recording a score, finding its rank and finding the score
+// at a percentile each take O(log m) for a highest score of m, however many
+// runs there are. Scores below 0 count as 0 and scores above MAX_SCORE as
+// MAX_SCORE. The tree starts small and doubles when a higher score comes in.
+public class Leaderboard implements IntConsumer {
+
+    // highest score with its own bucket; 2^22 steps is over 23 hours of play
+    public static final int MAX_SCORE = (1 << 22) - 1;
+
+    // tree[i] holds the count of buckets (i - lowbit(i), i]; bucket of score s is s + 1
+    private long[] tree = new long[1 + 1024];
+    private int capacity = 1024;
+    private long total;
+
+    // Records one run
+    @Override
+    public void accept(int score) {
+        add(score, 1);
+    }
+
+    // Records the same score for several runs
+    public void add(int score, long times) {
+        if (times < 0) {
+            throw new IllegalArgumentException("times must not be negative");
+        }
+        int s = clamp(score);
+        while (s >= capacity) {
+            grow();
+        }
+        for (int i = s + 1; i <= capacity; i += i & -i) {
+            tree[i] += times;
+        }
+        total += times;
+    }
+
+    // number of runs recorded
+    public long size() {
+        return total;
+    }
+
+    // number of runs that scored at most the given score
+    public long countAtMost(int score) {
+        if (score < 0) {
+            return 0;
+        }
+        int s = Math.min(clamp(score), capacity - 1);
+        long sum = 0;
+        for (int i = s + 1; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    // place of a run with the given score, 1 for the best; ties share a place
+    public long rank(int score) {
+        return total - countAtMost(score) + 1;
+    }
+
+    // percentage of runs that scored at most the given score, 0 when empty
+    public double percentile(int score) {
+        return total == 0 ? 0 : 100.0 * countAtMost(score) / total;
+    }
+
+    // lowest score that at least the given percentage of runs did not beat
+    public int scoreAtPercentile(double percent) {
+        if (!(percent >= 0 && percent <= 100)) {
+            throw new IllegalArgumentException("percent must be between 0 and 100");
+        }
+        if (total == 0) {
+            throw new IllegalStateException("no scores recorded");
+        }
+        long target = Math.max(1, (long) Math.ceil(percent / 100 * total));
+        // walk down the tree, skipping whole blocks whose runs are still below the target
+        int pos = 0;
+        for (int step = capacity; step > 0; step >>= 1) {
+            if (pos + step <= capacity && tree[pos + step] < target) {
+                pos += step;
+                target -= tree[pos];
+            }
+        }
+        return pos;
+    }
+
+    private static int clamp(int score) {
+        return Math.max(0, Math.min(score, MAX_SCORE));
+    }
+
+    // doubles the buckets; the new upper half is empty, so only its last node,
+    // which spans the whole tree, holds anything
+    private void grow() {
+        int doubled = capacity * 2;
+        tree = Arrays.copyOf(tree, doubled + 1);
+        tree[doubled] = total;
+        capacity = doubled;
+    }
+}
@@ -0,0 +1,354 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+// Binary, memory-mapped repository for large score archives. The file is a
+// 16-byte header (magic "TRNM", version, score count, length of the top
+// region) followed by the scores as little-endian ints. The top region holds
+// the highest scores in descending order; the rest follow in no particular
+// order. Scores are read straight from the mapping, with no parsing and no
+// copy, and a new score is stored in place: it either joins the top region,
+// pushing that region's lowest score to the end, or is appended. The file
+// grows by doubling, so it may be longer than its scores.
+//
+// The mapping is not flushed after every change; close() forces it to disk,
+// and until then the operating system writes it back when it chooses. A
+// mapping stays open until it is garbage collected, even after close(), so
+// once the file is mapped write() rewrites it in place rather than renaming
+// a new file over it, which Windows refuses while the file is mapped.
+public class MappedScoreRepository implements ScoreRepository, Closeable {
+
+    // length of the top region: the largest scores, kept in front
+    public static final int DEFAULT_TOP = 10;
+
+    static final int HEADER = 16;
+    private static final int MAGIC = 0x4D4E5254; // "TRNM" read little-endian
+    private static final int VERSION = 1;
+    private static final int MIN_CAPACITY = 1024;
+
+    private final Path file;
+    private final int topSize;
+
+    // guarded by this
+    private FileChannel channel;
+    private MappedByteBuffer map;
+    private IntBuffer ints;
+    private int capacity;
+    private int count;
+    private int top;
+    private boolean closed;
+
+    public MappedScoreRepository(String file) {
+        this(path(file), DEFAULT_TOP);
+    }
+
+    public MappedScoreRepository(Path file, int topSize) {
+        if (file == null) {
+            throw new IllegalArgumentException("file path must not be null/empty");
+        }
+        if (topSize <= 0) {
+            throw new IllegalArgumentException("topSize must be positive");
+        }
+        this.file = file.toAbsolutePath();
+        this.topSize = topSize;
+    }
+
+    private static Path path(String file) {
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("file path must not be null/empty");
+        }
+        return Paths.get(file);
+    }
+
+    @Override
+    public synchronized List<Integer> read() throws IOException {
+        final List<Integer> out = new ArrayList<Integer>(open() ? count : 0);
+        forEach(out::add);
+        return out;
+    }
+
+    // Streams the scores straight from the mapping, the top region first
+    @Override
+    public synchronized void forEach(IntConsumer sink) throws IOException {
+        if (!open()) {
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            sink.accept(ints.get(i));
+        }
+    }
+
+    // Returns the top region: the highest scores, largest first
+    public synchronized List<Integer> readTop() throws IOException {
+        List<Integer> out = new ArrayList<Integer>(topSize);
+        if (open()) {
+            for (int i = 0; i < top; i++) {
+                out.add(ints.get(i));
+            }
+        }
+        return out;
+    }
+
+    // Replaces the whole file with the given scores; once the file is mapped
+    // this rewrites it in place, so it is not atomic
+    @Override
+    public synchronized void write(List<Integer> scores) throws IOException {
+        if (scores == null) {
+            throw new IllegalArgumentException("scores must not be null");
+        }
+        int[] values = new int[scores.size()];
+        for (int i = 0; i < values.length; i++) {
+            Integer v = scores.get(i);
+            values[i] = v == null ? 0 : v;
+        }
+        checkOpen();
+        if (map == null) {
+            // not mapped yet, so a new file can safely be renamed over it
+            writeFile(file, values, values.length, topSize);
+            return;
+        }
+        // rewrite the mapped file in place: renaming a new file over it would
+        // fail on Windows, where a mapping is only released by the collector
+        if (values.length > capacity) {
+            remap(values.length);
+        }
+        final int[] at = {0};
+        top = layout(values, values.length, topSize, v -> ints.put(at[0]++, v));
+        count = values.length;
+        writeHeader();
+        map.force();
+    }
+
+    // Stores one more score in place; the top list is not needed
+    @Override
+    public synchronized void add(int score, List<Integer> ignored) throws IOException {
+        if (!open()) {
+            writeFile(file, new int[0], 0, topSize);
+            open();
+        }
+        if (count == capacity) {
+            remap(2 * capacity);
+        }
+        int end = count;
+        if (top < topSize && top == count) {
+            // the whole file is the top region and there is room in it
+            top++;
+        } else if (top > 0 && score > ints.get(top - 1)) {
+            // the lowest of the top region moves to the end
+            ints.put(count, ints.get(top - 1));
+            end = top - 1;
+        } else {
+            ints.put(count, score);
+            end = -1;
+        }
+        if (end >= 0) {
+            int i = end;
+            while (i > 0 && ints.get(i - 1) < score) {
+                ints.put(i, ints.get(i - 1));
+                i--;
+            }
+            ints.put(i, score);
+        }
+        count++;
+        writeHeader();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        unmap();
+    }
+
+    // Converts a text score file to the binary format, sorted so the top
+    // region is filled; returns the number of scores converted
+    public static int convert(Path text, Path binary) throws IOException {
+        final int[][] values = {new int[MIN_CAPACITY]};
+        final int[] n = {0};
+        new FileScoreRepository(text.toString()).forEach(v -> {
+            if (n[0] == values[0].length) {
+                values[0] = Arrays.copyOf(values[0], n[0] * 2);
+            }
+            values[0][n[0]++] = v;
+        });
+        int[] sorted = values[0];
+        Arrays.sort(sorted, 0, n[0]);
+        for (int i = 0, j = n[0] - 1; i < j; i++, j--) {
+            int t = sorted[i];
+            sorted[i] = sorted[j];
+            sorted[j] = t;
+        }
+        writeFile(binary.toAbsolutePath(), sorted, n[0], DEFAULT_TOP);
+        return n[0];
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: java MappedScoreRepository <scores.txt> <scores.bin>");
+            return;
+        }
+        int n = convert(Paths.get(args[0]), Paths.get(args[1]));
+        System.out.println("Converted " + n + " scores to " + args[1]);
+    }
+
+    // receives the scores in file order
+    private interface IntSink {
+        void put(int v) throws IOException;
+    }
+
+    // hands the scores to the sink in file order: the largest min(n, topSize)
+    // first, highest first, then the rest in their given order; returns the
+    // length of the top region
+    private static int layout(int[] values, int n, int topSize, IntSink sink) throws IOException {
+        if (n == 0) {
+            return 0;
+        }
+        TopScores best = new TopScores(Math.min(n, topSize));
+        for (int i = 0; i < n; i++) {
+            best.accept(values[i]);
+        }
+        int[] front = best.toArray();
+        int top = front.length;
+        // every score above the lowest one in front is in front; of the lowest,
+        // only as many copies as front holds
+        int cut = front[top - 1];
+        int cutsInFront = 0;
+        for (int v : front) {
+            sink.put(v);
+            if (v == cut) {
+                cutsInFront++;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            int v = values[i];
+            if (v > cut || (v == cut && cutsInFront-- > 0)) {
+                continue;
+            }
+            sink.put(v);
+        }
+        return top;
+    }
+
+    // writes a whole file next to the target and renames it into place; only
+    // for files this process has not mapped
+    private static void writeFile(Path target, int[] values, int n, int topSize) throws IOException {
+        Path tmp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                final ByteBuffer buf = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+                buf.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(Math.min(n, topSize));
+                layout(values, n, topSize, v -> {
+                    if (!buf.hasRemaining()) {
+                        drain(ch, buf);
+                    }
+                    buf.putInt(v);
+                });
+                drain(ch, buf);
+                ch.force(true);
+            }
+            try {
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static void drain(FileChannel ch, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            ch.write(buf);
+        }
+        buf.clear();
+    }
+
+    private void checkOpen() throws IOException {
+        if (closed) {
+            throw new IOException("repository is closed");
+        }
+    }
+
+    // maps the file on first use; false if it does not exist yet
+    private boolean open() throws IOException {
+        checkOpen();
+        if (map != null) {
+            return true;
+        }
+        if (!Files.exists(file)) {
+            return false;
+        }
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = channel.size();
+        if (size < HEADER || (size - HEADER) % 4 != 0 || size > Integer.MAX_VALUE) {
+            unmap();
+            throw new IOException("not a binary score file: " + file);
+        }
+        map(size);
+        if (map.getInt(0) != MAGIC || map.getInt(4) != VERSION) {
+            unmap();
+            throw new IOException("not a binary score file: " + file);
+        }
+        count = map.getInt(8);
+        top = map.getInt(12);
+        if (count < 0 || count > capacity || top < 0 || top > count) {
+            unmap();
+            throw new IOException("corrupt binary score file: " + file);
+        }
+        return true;
+    }
+
+    private void map(long size) throws IOException {
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        map.order(ByteOrder.LITTLE_ENDIAN);
+        map.position(HEADER);
+        ints = map.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        capacity = ints.capacity();
+    }
+
+    // grows the file and maps it again
+    private void remap(int newCapacity) throws IOException {
+        long size = HEADER + 4L * Math.max(newCapacity, MIN_CAPACITY);
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("binary score file is full: " + file);
+        }
+        map.force();
+        map(size);
+    }
+
+    private void writeHeader() {
+        map.putInt(8, count);
+        map.putInt(12, top);
+    }
+
+    // flushes and drops our reference to the mapping; the next use maps the
+    // file again. The mapping itself lasts until the buffer is collected
+    private void unmap() throws IOException {
+        if (map != null) {
+            map.force();
+        }
+        map = null;
+        ints = null;
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+}
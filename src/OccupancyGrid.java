@@ -0,0 +1,297 @@
+import java.util.Arrays;
+
+/**
+ * Arena-wide occupancy bitset for player trails.
+ * <p>
+ * One bit per court pixel, packed row-major into a {@code long[]}, so a
+ * 500x500 court costs about 31KB. Trail segments are stamped together with
+ * the crash tolerance around them (half a player's size on either side of
+ * the line), which turns a crash check into a single bit lookup at the
+ * player's head no matter how long the trails have grown.
+ * <p>
+ * The words are split into pages of 4096 cells. Untouched pages are never
+ * allocated, and {@link #copy()} shares pages copy-on-write, so a copy
+ * costs one reference per page however much of the court is covered.
+ */
+public class OccupancyGrid {
+
+	// 64 words of 64 cells per page
+	private static final int PAGE_SHIFT = 6;
+	private static final int PAGE_WORDS = 1 << PAGE_SHIFT;
+
+	private final int width;
+	private final int height;
+	// null pages are empty
+	private final long[][] pages;
+	// pages that another grid may still read and must be copied before writing
+	private final boolean[] shared;
+
+	/**
+	 * Creates an empty grid covering a court of the given size.
+	 *
+	 * @param width the court width in pixels
+	 * @param height the court height in pixels
+	 */
+	public OccupancyGrid(int width, int height) {
+		if (width <= 0 || height <= 0) {
+			throw new IllegalArgumentException("grid dimensions must be positive");
+		}
+		this.width = width;
+		this.height = height;
+		int words = (int) (((long) width * height + 63) >>> 6);
+		this.pages = new long[(words + PAGE_WORDS - 1) >>> PAGE_SHIFT][];
+		this.shared = new boolean[pages.length];
+	}
+
+	// creates a grid sharing every page of another one
+	private OccupancyGrid(OccupancyGrid other) {
+		this.width = other.width;
+		this.height = other.height;
+		this.pages = other.pages.clone();
+		this.shared = new boolean[pages.length];
+		Arrays.fill(shared, true);
+		Arrays.fill(other.shared, true);
+	}
+
+	/**
+	 * Returns a copy of this grid. Pages are shared until either grid
+	 * writes to them, so the copy costs O(pages), not O(cells).
+	 *
+	 * @return the copy
+	 */
+	public OccupancyGrid copy() {
+		return new OccupancyGrid(this);
+	}
+
+	/**
+	 * Makes this grid equal to another grid of the same size, sharing its
+	 * pages copy-on-write.
+	 *
+	 * @param other the grid to copy
+	 */
+	public void restore(OccupancyGrid other) {
+		if (other.width != width || other.height != height) {
+			throw new IllegalArgumentException("grid dimensions differ");
+		}
+		System.arraycopy(other.pages, 0, pages, 0, pages.length);
+		Arrays.fill(shared, true);
+		Arrays.fill(other.shared, true);
+	}
+
+	/**
+	 * Returns the width of the grid in cells.
+	 *
+	 * @return the grid width
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Returns the height of the grid in cells.
+	 *
+	 * @return the grid height
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Empties every cell of the grid.
+	 */
+	public void clear() {
+		Arrays.fill(pages, null);
+		Arrays.fill(shared, false);
+	}
+
+	/**
+	 * Checks whether a cell is occupied. Cells outside the court are empty.
+	 *
+	 * @param x the cell's x coordinate
+	 * @param y the cell's y coordinate
+	 * @return true if the cell is covered by a trail
+	 */
+	public boolean get(int x, int y) {
+		if (x < 0 || y < 0 || x >= width || y >= height) {
+			return false;
+		}
+		int i = y * width + x;
+		long[] page = pages[i >>> (6 + PAGE_SHIFT)];
+		return page != null
+				&& (page[(i >>> 6) & (PAGE_WORDS - 1)] & (1L << i)) != 0;
+	}
+
+	/**
+	 * Casts an axis-aligned ray from a cell and counts the free cells it
+	 * crosses before reaching an occupied one or the edge of the court.
+	 * Horizontal rays test 64 cells per word and skip empty pages whole;
+	 * vertical rays visit one cell per row. Either way the cost is at most
+	 * O(max) and nothing is allocated.
+	 *
+	 * @param x the x coordinate of the starting cell
+	 * @param y the y coordinate of the starting cell
+	 * @param dx the step along x: -1, 0 or 1
+	 * @param dy the step along y: -1, 0 or 1, with exactly one of dx and dy
+	 *        nonzero
+	 * @param max the farthest distance of interest
+	 * @return the number of free cells ahead, at most max; 0 if the start
+	 *         is outside the court
+	 */
+	public int distance(int x, int y, int dx, int dy, int max) {
+		if (Math.abs(dx) + Math.abs(dy) != 1) {
+			throw new IllegalArgumentException("ray must be a unit axis step");
+		}
+		if (x < 0 || y < 0 || x >= width || y >= height || max <= 0) {
+			return 0;
+		}
+		if (dy == 0) {
+			int i = y * width + x;
+			if (dx > 0) {
+				int limit = Math.min(max, width - 1 - x);
+				int hit = firstSet(i + 1, i + limit);
+				return hit < 0 ? limit : hit - i - 1;
+			}
+			int limit = Math.min(max, x);
+			int hit = lastSet(i - limit, i - 1);
+			return hit < 0 ? limit : i - hit - 1;
+		}
+		int limit = Math.min(max, dy > 0 ? height - 1 - y : y);
+		for (int k = 1; k <= limit; k++) {
+			if (get(x, y + k * dy)) {
+				return k - 1;
+			}
+		}
+		return limit;
+	}
+
+	// lowest occupied cell index in [from, to], or -1
+	private int firstSet(int from, int to) {
+		if (from > to) {
+			return -1;
+		}
+		int last = to >>> 6;
+		for (int w = from >>> 6; w <= last; ) {
+			long[] page = pages[w >>> PAGE_SHIFT];
+			if (page == null) {
+				w = ((w >>> PAGE_SHIFT) + 1) << PAGE_SHIFT;
+				continue;
+			}
+			long bits = page[w & (PAGE_WORDS - 1)];
+			if (w == from >>> 6) {
+				bits &= -1L << from;
+			}
+			if (w == last) {
+				bits &= -1L >>> (63 - (to & 63));
+			}
+			if (bits != 0) {
+				return (w << 6) + Long.numberOfTrailingZeros(bits);
+			}
+			w++;
+		}
+		return -1;
+	}
+
+	// highest occupied cell index in [from, to], or -1
+	private int lastSet(int from, int to) {
+		if (from > to) {
+			return -1;
+		}
+		int first = from >>> 6;
+		for (int w = to >>> 6; w >= first; ) {
+			long[] page = pages[w >>> PAGE_SHIFT];
+			if (page == null) {
+				w = ((w >>> PAGE_SHIFT) << PAGE_SHIFT) - 1;
+				continue;
+			}
+			long bits = page[w & (PAGE_WORDS - 1)];
+			if (w == to >>> 6) {
+				bits &= -1L >>> (63 - (to & 63));
+			}
+			if (w == first) {
+				bits &= -1L << from;
+			}
+			if (bits != 0) {
+				return (w << 6) + 63 - Long.numberOfLeadingZeros(bits);
+			}
+			w--;
+		}
+		return -1;
+	}
+
+	/**
+	 * Marks a horizontal run of cells as occupied, clipped to the court.
+	 *
+	 * @param x1 the first x coordinate (inclusive)
+	 * @param x2 the last x coordinate (inclusive)
+	 * @param y the row
+	 */
+	public void fillRow(int x1, int x2, int y) {
+		if (y < 0 || y >= height) {
+			return;
+		}
+		int from = Math.max(0, Math.min(x1, x2));
+		int to = Math.min(width - 1, Math.max(x1, x2));
+		if (from > to) {
+			return;
+		}
+		int start = y * width + from;
+		int end = y * width + to;
+		int w1 = start >>> 6;
+		int w2 = end >>> 6;
+		long first = -1L << start;
+		long last = -1L >>> (63 - (end & 63));
+		if (w1 == w2) {
+			or(w1, first & last);
+		} else {
+			or(w1, first);
+			for (int w = w1 + 1; w < w2; w++) {
+				or(w, -1L);
+			}
+			or(w2, last);
+		}
+	}
+
+	// sets bits in a word, allocating or copying its page first if needed
+	private void or(int word, long mask) {
+		int p = word >>> PAGE_SHIFT;
+		long[] page = pages[p];
+		if (page == null) {
+			page = new long[PAGE_WORDS];
+			pages[p] = page;
+			shared[p] = false;
+		} else if (shared[p]) {
+			page = page.clone();
+			pages[p] = page;
+			shared[p] = false;
+		}
+		page[word & (PAGE_WORDS - 1)] |= mask;
+	}
+
+	/**
+	 * Stamps an axis-aligned trail segment together with its crash margin.
+	 * Horizontal (and zero-length) segments are widened vertically by
+	 * {@code halfHeight}, vertical segments horizontally by {@code halfWidth},
+	 * matching the tolerance a head has against a line it runs into.
+	 *
+	 * @param x1 the starting X coordinate
+	 * @param y1 the starting Y coordinate
+	 * @param x2 the ending X coordinate
+	 * @param y2 the ending Y coordinate
+	 * @param halfWidth margin on either side of a vertical segment
+	 * @param halfHeight margin on either side of a horizontal segment
+	 */
+	public void stampSegment(int x1, int y1, int x2, int y2,
+			int halfWidth, int halfHeight) {
+		if (y1 == y2) {
+			for (int y = y1 - halfHeight; y <= y1 + halfHeight; y++) {
+				fillRow(x1, x2, y);
+			}
+		} else if (x1 == x2) {
+			int from = Math.min(y1, y2);
+			int to = Math.max(y1, y2);
+			for (int y = from; y <= to; y++) {
+				fillRow(x1 - halfWidth, x1 + halfWidth, y);
+			}
+		}
+	}
+}
@@ -1,18 +1,29 @@
 
 import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.Serial;
-import java.util.Collections;
-import java.util.LinkedHashMap;
-import java.util.Map;
 import javax.imageio.ImageIO;
 
 /**
  * Provides methods to facilitate drawing images.
- * Non-instantiable utility with a small LRU cache and safe I/O.
+ * Non-instantiable utility with a byte-budgeted image cache and safe I/O.
+ * <p>
+ * Images are converted to the screen's pixel format when they are first
+ * loaded, so drawing a cached image is a plain (and usually accelerated)
+ * blit with no decoding or per-pixel conversion.
+ * <p>
+ * Images packed into the sprite atlas ({@code /atlas/atlas.png}, written
+ * by {@link AtlasPacker}) are served from it: the atlas is decoded once on
+ * first use and each image is a sub-rectangle of it. Only the small
+ * sprites are packed; photos and full-page pictures, and any other names,
+ * are loaded from their own files. The atlas is held for the life of the game
+ * and is not part of the cache: the cache's budget and counters cover only
+ * the names that are not packed.
  */
 public final class Picture {
 
@@ -22,19 +33,21 @@ public final class Picture {
 	// Classpath base for images
 	private static final String CLASSPATH_IMAGES = "/images/";
 
-	// Bound the cache to avoid unbounded memory growth
-	private static final int CACHE_CAPACITY = 64;
-
-	// Simple LRU cache; synchronized wrapper for basic thread-safety
-	private static final Map<String, BufferedImage> cache =
-		Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
-			@Serial
-            private static final long serialVersionUID = 1L;
-			@Override
-			protected boolean removeEldestEntry(Map.Entry<String, BufferedImage> eldest) {
-				return size() > CACHE_CAPACITY;
-			}
-		});
+	// Bound the cache by decoded pixel bytes; 32MB unless overridden
+	private static final long CACHE_BYTES =
+		Long.getLong("tron.imageCacheBytes", 32L << 20);
+
+	// Concurrent byte-budgeted cache of converted images
+	private static final ImageCache cache = new ImageCache(CACHE_BYTES);
+
+	// Classpath location of the packed atlas and its index
+	private static final String ATLAS_IMAGE = "/atlas/atlas.png";
+	private static final String ATLAS_INDEX = "/atlas/atlas.txt";
+
+	// Loads the atlas on first use; the class initializer makes it thread-safe
+	private static final class Atlas {
+		static final SpriteAtlas INSTANCE = loadAtlas();
+	}
 
 	/**
 	 * Draw an image.
@@ -51,19 +64,96 @@ public final class Picture {
 			return; // avoid NPEs during painting
 		}
 
-		BufferedImage img = cache.get(filepath);
+		SpriteAtlas atlas = getAtlas();
+		if (atlas != null && atlas.draw(g, filepath, x, y)) {
+			return;
+		}
+		BufferedImage img = get(filepath);
 		if (img == null) {
-			img = loadImage(filepath);
-			if (img != null) {
-				cache.put(filepath, img);
-			} else {
-				// Could not load; skip drawing quietly to avoid disrupting UI
-				return;
-			}
+			// Could not load; skip drawing quietly to avoid disrupting UI
+			return;
 		}
 		g.drawImage(img, x, y, null);
 	}
 
+	/**
+	 * Get an image from the cache, loading and converting it on first use.
+	 *
+	 * @param filepath The image path (classpath relative file name under /images, or filesystem fallback).
+	 * @return The image in the screen's pixel format, or null if it could not be loaded.
+	 */
+	public static BufferedImage get(String filepath) {
+		if (filepath == null || filepath.isEmpty()) {
+			return null;
+		}
+		SpriteAtlas atlas = getAtlas();
+		if (atlas != null && atlas.contains(filepath)) {
+			return atlas.get(filepath);
+		}
+		return cache.get(filepath, Picture::loadCompatible);
+	}
+
+	/**
+	 * Get the sprite atlas, loading it on first use.
+	 *
+	 * @return The atlas in the screen's pixel format, or null if there is none.
+	 */
+	public static SpriteAtlas getAtlas() {
+		return Atlas.INSTANCE;
+	}
+
+	/**
+	 * Get the image cache, e.g. to read its hit, miss and eviction counters.
+	 * Images served from the sprite atlas never reach it, so the counters
+	 * and the byte total cover only names that are not packed; see
+	 * {@link #getAtlas()} for the atlas itself.
+	 *
+	 * @return The cache behind {@link #get(String)}.
+	 */
+	public static ImageCache getCache() {
+		return cache;
+	}
+
+	// Load an image and convert it for the screen
+	private static BufferedImage loadCompatible(String filepath) {
+		BufferedImage img = loadImage(filepath);
+		return img == null ? null : toCompatible(img);
+	}
+
+	// Load the atlas and convert it for the screen; without one, every image
+	// is loaded on its own
+	private static SpriteAtlas loadAtlas() {
+		try {
+			SpriteAtlas atlas = SpriteAtlas.load(ATLAS_IMAGE, ATLAS_INDEX);
+			return atlas == null ? null : atlas.withImage(toCompatible(atlas.getImage()));
+		} catch (IOException e) {
+			System.err.println("Failed to load sprite atlas (" + e + ")");
+			return null;
+		}
+	}
+
+	// Copy an image into the default screen's pixel format, unless it already
+	// matches or there is no screen
+	private static BufferedImage toCompatible(BufferedImage img) {
+		if (GraphicsEnvironment.isHeadless()) {
+			return img;
+		}
+		GraphicsConfiguration gc = GraphicsEnvironment.getLocalGraphicsEnvironment()
+				.getDefaultScreenDevice().getDefaultConfiguration();
+		if (img.getColorModel().equals(gc.getColorModel(img.getTransparency()))) {
+			return img;
+		}
+		BufferedImage converted = gc.createCompatibleImage(
+				img.getWidth(), img.getHeight(), img.getTransparency());
+		Graphics2D g = converted.createGraphics();
+		try {
+			g.drawImage(img, 0, 0, null);
+		} finally {
+			g.dispose();
+		}
+		return converted;
+	}
+
 	// Load from classpath (/images/...) first, then filesystem fallback
 	private static BufferedImage loadImage(String filepath) {
 		// Try classpath
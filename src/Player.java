@@ -1,12 +1,8 @@
 import java.awt.Color;
 import java.awt.Graphics;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
-import java.util.ArrayList;
+import java.awt.Rectangle;
 
-import javax.swing.Timer;
-
-public abstract class Player extends GameObject {
+public abstract class Player extends GameObject implements Cloneable {
 	
 	// player's colors
 	Color color;
@@ -16,6 +12,9 @@ public abstract class Player extends GameObject {
 	boolean jump = false;
 	boolean booster = false;
 	
+	// what ended the run, null while alive
+	CrashCause cause;
+	
 	// initial conditions
 	int startVel = 0;
 	int boostLeft = 3;
@@ -25,24 +24,49 @@ public abstract class Player extends GameObject {
 	static int HEIGHT = 5;
 	static int VELBOOST = 5;
 	static int JUMPHEIGHT = 16;
+	static int BOOSTTICKS = 15;
+	
+	// step at which the current boost runs out
+	long boostEnd = 0;
+	
+	// simulation timers the boost expiry is scheduled on
+	TimerWheel timers;
 	
-	// timer for length of boost
-	Timer boostTimer;
+	// ends the boost unless a later boost has pushed its end back
+	private final Runnable boostExpiry = new Runnable() {
+		public void run() {
+			if (timers.now() >= boostEnd) {
+				booster = false;
+			}
+		}
+	};
 		
 	// Player object's path
-	ArrayList<Shape> lines = new ArrayList<Shape>();
+	Trail lines = new Trail();
 	
-	// constructor initializes initial conditions, timer, and color
+	// arena occupancy shared by all players on the court
+	OccupancyGrid grid;
+	
+	// the newest segment of the path, stamped into the grid only once a
+	// newer one replaces it so the head never crashes into its own tail
+	boolean pending = false;
+	int pendingX1, pendingY1, pendingX2, pendingY2;
+	
+	// screen area the last move changed: the old head, the new head and the
+	// segment between them
+	boolean moved = false;
+	int movedX1, movedY1, movedX2, movedY2;
+	
+	// where the last move started, for drawing between steps
+	int prevX, prevY;
+	
+	// constructor initializes initial conditions and color
 	public Player(int randX, int randY, int velx, int vely, Color color) {
 		super(randX, randY, velx, vely, WIDTH, HEIGHT);
 		startVel = Math.max(Math.abs(velx), Math.abs(vely));
-		boostTimer = new Timer(300, new ActionListener() {
-			public void actionPerformed(ActionEvent e) {
-				booster = false;
-				boostTimer.stop();
-			}
-		});
 		this.color = color;
+		prevX = randX;
+		prevY = randY;
 	}
 	
 	// used for label to display the number of boosts left
@@ -54,11 +78,11 @@ public abstract class Player extends GameObject {
 	public void accelerate() {
 		if (x < 0 || x > rightBound) {
 			velocityX = 0;
-			alive = false;
+			die(CrashCause.WALL);
 		}
 		if (y < 0 || y > bottomBound) {
 			velocityY = 0;
-			alive = false;
+			die(CrashCause.WALL);
 		}
 	}	
 	
@@ -71,8 +95,11 @@ public abstract class Player extends GameObject {
 	public void startBoost() {
 		if (boostLeft > 0) {
 			booster = true;
-			boostTimer.start();
 			boostLeft--;
+			if (timers != null) {
+				boostEnd = timers.now() + BOOSTTICKS;
+				timers.schedule(BOOSTTICKS, boostExpiry);
+			}
 		}
 	}
 	
@@ -103,11 +130,85 @@ public abstract class Player extends GameObject {
 	
 	// draws Player and path
 	public void draw(Graphics g) {
+		drawHead(g);
+		AwtLineDrawer.draw(lines, g);
+	}
+	
+	// draws only the Player, for views that keep paths in a TrailLayer
+	public void drawHead(Graphics g) {
 		g.setColor(color);
 		g.fillRect(x - WIDTH/2, y - HEIGHT/2, WIDTH, HEIGHT);
-		for (Shape k: lines) {
-			AwtLineDrawer.draw((Line) k, g);;
+	}
+	
+	// records the area changed by a move that started at (fromX, fromY)
+	void markMoved(int fromX, int fromY) {
+		prevX = fromX;
+		prevY = fromY;
+		moved = fromX != x || fromY != y;
+		movedX1 = Math.min(fromX, x) - WIDTH/2;
+		movedY1 = Math.min(fromY, y) - HEIGHT/2;
+		movedX2 = Math.max(fromX, x) + WIDTH/2 + 1;
+		movedY2 = Math.max(fromY, y) + HEIGHT/2 + 1;
+	}
+	
+	// grows a region to include the area changed by the last move;
+	// a region with a negative size counts as empty
+	public boolean addMoved(Rectangle r) {
+		if (!moved) {
+			return false;
+		}
+		if (r.width < 0 || r.height < 0) {
+			r.setBounds(movedX1, movedY1, movedX2 - movedX1, movedY2 - movedY1);
+		} else {
+			int x1 = Math.min(r.x, movedX1);
+			int y1 = Math.min(r.y, movedY1);
+			int x2 = Math.max(r.x + r.width, movedX2);
+			int y2 = Math.max(r.y + r.height, movedY2);
+			r.setBounds(x1, y1, x2 - x1, y2 - y1);
 		}
+		return true;
+	}
+	
+	// sets the occupancy grid the Player stamps its path into
+	public void setGrid(OccupancyGrid grid) {
+		this.grid = grid;
+	}
+	
+	// sets the timers boosts expire on; without them a boost never ends
+	public void setTimers(TimerWheel timers) {
+		this.timers = timers;
+	}
+	
+	// schedules the expiry of a boost in progress again after the timers
+	// were reset, e.g. when a snapshot is restored
+	void rescheduleBoost() {
+		if (booster && timers != null) {
+			timers.schedule(boostEnd - timers.now(), boostExpiry);
+		}
+	}
+	
+	// extends the path with a new segment and stamps the previous one
+	void addSegment(int x1, int y1, int x2, int y2) {
+		lines.extend(x1, y1, x2, y2);
+		if (grid != null) {
+			if (pending) {
+				grid.stampSegment(pendingX1, pendingY1, pendingX2, pendingY2,
+						WIDTH/2, HEIGHT/2);
+			}
+			pendingX1 = x1;
+			pendingY1 = y1;
+			pendingX2 = x2;
+			pendingY2 = y2;
+			pending = true;
+		}
+	}
+	
+	// checks the Player's head against every stamped trail on the court
+	public Intersection intersectsTrail() {
+		if (grid != null && grid.get(x, y)) {
+			return Intersection.UP;
+		}
+		return Intersection.NONE;
 	}
 	
 	// returns the state of the Player
@@ -116,24 +217,75 @@ public abstract class Player extends GameObject {
 	}
 	
 	// returns the Player's path
-	public ArrayList<Shape> getPath() {
+	public Trail getPath() {
 		return lines;
 	}
 	
+	// returns what ended the Player's run, or null while alive
+	public CrashCause getCause() {
+		return cause;
+	}
+	
 	// checks if the Player has crashed with a path
 	public void crash(Intersection i) {
+		crash(i, CrashCause.TRAIL);
+	}
+	
+	// checks if the Player has crashed, recording the cause
+	public void crash(Intersection i, CrashCause c) {
 		if (i == Intersection.UP) {
 			velocityX = 0;
 			velocityY = 0;
-			alive = false;
+			die(c);
+		}
+	}
+	
+	// ends the Player's run, keeping the first cause
+	void die(CrashCause c) {
+		if (alive) {
+			cause = c;
 		}
+		alive = false;
+	}
+	
+	// returns a copy of the Player's state; the path is shared, not copied
+	Player save() {
+		try {
+			Player s = (Player) clone();
+			s.lines = lines.copy();
+			return s;
+		} catch (CloneNotSupportedException e) {
+			throw new AssertionError(e);
+		}
+	}
+	
+	// puts the Player back into a state returned by save()
+	void restore(Player s) {
+		x = s.x;
+		y = s.y;
+		velocityX = s.velocityX;
+		velocityY = s.velocityY;
+		rightBound = s.rightBound;
+		bottomBound = s.bottomBound;
+		alive = s.alive;
+		jump = s.jump;
+		booster = s.booster;
+		cause = s.cause;
+		startVel = s.startVel;
+		boostLeft = s.boostLeft;
+		boostEnd = s.boostEnd;
+		prevX = s.prevX;
+		prevY = s.prevY;
+		lines.restore(s.lines);
+		pending = s.pending;
+		pendingX1 = s.pendingX1;
+		pendingY1 = s.pendingY1;
+		pendingX2 = s.pendingX2;
+		pendingY2 = s.pendingY2;
 	}
 	
 	// moves the Player on the screen based on its velocity
 	public abstract void move();
 	
-	// adds Player objects to the field
-	abstract void addPlayers(Player[] players);
-	
 }
 
@@ -1,8 +1,6 @@
 
 
 import java.awt.Color;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Random;
 
 
@@ -11,19 +9,30 @@ public class PlayerAI extends Player {
 	// the number of steps before a random turn
 	private int time = 40;
 	
-	// the list of other players on the court
-	private Player[] players = new Player[1];
+	// how near a trail ahead may come before the AI turns away
+	private static final int REACT = 6;
 	
-	private Random rand = new Random();
+	// how far the AI looks to either side when choosing where to turn
+	private static final int LOOKSIDE = 64;
+	
+	private CopyableRandom rand;
 	
 	public PlayerAI(int randX, int randY, int velx, int vely, Color color) {
-		super(randX, randY, velx, vely, color);
-		players[0] = this;
+		this(randX, randY, velx, vely, color, new Random());
 	}
 	
-	// must be called so that the AI knows where trails are
-	public void addPlayers(Player[] players) {
-		this.players = players;
+	// creates an AI whose random turns and boosts come from the given source
+	public PlayerAI(int randX, int randY, int velx, int vely, Color color,
+			Random rand) {
+		super(randX, randY, velx, vely, color);
+		if (rand == null) {
+			throw new IllegalArgumentException("rand must not be null");
+		}
+		if (rand instanceof CopyableRandom) {
+			this.rand = (CopyableRandom) rand;
+		} else {
+			this.rand = new CopyableRandom(rand.nextLong());
+		}
 	}
 	
 	// gets the AI's move depending on its surroundings
@@ -36,159 +45,35 @@ public class PlayerAI extends Player {
 			startBoost();
 		} 
 		
-		// adds all lines of all players to one list
-		ArrayList<Shape> lines = new ArrayList<Shape>();
-		lines.addAll(this.getPath());
-		Collections.reverse(lines);
-		for (Player p: players) {
-			if (p != this) {
-				lines.addAll(p.getPath());
-			}
-		}
-		
-		for (int i = lines.size() - 1; i > 0; i--) {
-			Shape l = lines.get(i);
-			int maxX = Math.max(l.getStartX(), l.getEndX());
-			int minX = Math.min(l.getStartX(), l.getEndX());
-			int maxY = Math.max(l.getStartY(), l.getEndY());
-			int minY = Math.min(l.getStartY(), l.getEndY());
-			
-			// if there is a line in the path, checks if there is one adjacent
-			if (velocityX > 0 && l.isVertical() && y >= minY && y <= maxY) {
-				if (l.getStartX() - x < 6 && l.getStartX() - x > 0) {
-					boolean b = false;
-					for (int j = lines.size() - 1; j > 0; j--) {
-						Shape k = lines.get(j);
-						if (!k.isVertical() && y - k.getEndY() < 6 && 
-								y - k.getEndY() > 0) {
-							b = true;
-						}
-					}
-
-					// reacts appropriately
-					if (b) {
-						velocityY = velocity;
-					} else {
-						velocityY = -velocity;
-					}
-					velocityX = 0;
-					time = 40;
-					return;
-				}
-			}
-			
-			// if there is a line in the path, checks if there is one adjacent
-			if (velocityX < 0 && l.isVertical() && y >= minY && y <= maxY) {
-				if (x - l.getStartX() < 6 && x - l.getStartX() > 0) {
-					boolean b = false;
-					for (int j = lines.size() - 1; j > 0; j--) {
-						Shape k = lines.get(j);
-						if (!k.isVertical() && y - k.getEndY() < 6 && 
-								y - k.getEndY() > 0) {
-							b = true;
-						}
-					}
-					
-					// reacts appropriately
-					if (b) {
-						velocityY = velocity;
-					} else {
-						velocityY = -velocity;
-					}
-					velocityX = 0;
-					time = 40;
-					return;
-				}
-			} 
-			
-			// if there is a line in the path, checks if there is one adjacent
-			if (velocityY > 0 && !l.isVertical() && x >= minX && x <= maxX) {
-				if (l.getStartY() - y < 6 && l.getStartY() - y > 0) {
-					boolean b = false;
-					for (int j = lines.size() - 1; j > 0; j--) {
-						Shape k = lines.get(j);
-						if (k.isVertical() && x - k.getEndX() < 6 && 
-								x - k.getEndX() > 0) {
-							b = true;
-						}
-					}
-					
-					// reacts appropriately
-					if (b) {
-						velocityX = velocity;
-					} else {
-						velocityX = -velocity;
-					}
-					velocityY = 0;
-					time = 40;
-					return;
-				}
-			} 
-			
-			// if there is a line in the path, checks if there is one adjacent
-			if (velocityY < 0 && !l.isVertical() && x >= minX && x <= maxX) {
-				if (y - l.getStartY() < 6 && y - l.getStartY() > 0) {
-					boolean b = false;
-					for (int j = lines.size() - 1; j > 0; j--) {
-						Shape k = lines.get(j);
-						if (k.isVertical() && x - k.getEndX() < 6 && 
-								x - k.getEndX() > 0) {
-							b = true;
-						}
-					}
-					
-					// reacts appropriately
-					if (b) {
-						velocityX = velocity;
-					} else {
-						velocityX = -velocity;
-					}
-					velocityY = 0;
-					time = 40;
-					return;
-				}
+		// turns toward the more open side if a trail is right ahead
+		int dx = Integer.signum(velocityX);
+		int dy = Integer.signum(velocityY);
+		if ((dx != 0 || dy != 0) && !clear(dx, dy, REACT)) {
+			int left = look(dy, -dx, LOOKSIDE);
+			int right = look(-dy, dx, LOOKSIDE);
+			if (left > right) {
+				turn(dy, -dx, velocity);
+			} else {
+				turn(-dy, dx, velocity);
 			}
+			return;
 		}
 		
 		// checks if the Player is too close to the edge
 		if (x < 6 && velocityX != 0) {
-			if (y < 250) {
-				velocityY = velocity;
-			} else {
-				velocityY = -velocity;
-			}
-			velocityX = 0;
-			time = 40;
+			turn(0, y < centerY() ? 1 : -1, velocity);
 			return;
 		} 
 		if (rightBound - x < 6 && velocityX != 0) {
-			if (y < 250) {
-				velocityY = velocity;
-			} else {
-				velocityY = -velocity;
-			}
-			velocityX = 0;
-			time = 40;
+			turn(0, y < centerY() ? 1 : -1, velocity);
 			return;
 		} 
 		if (y < 6 && velocityY != 0) {
-			if (x < 250) {
-				velocityX = velocity;
-			} else {
-				velocityX = -velocity;
-			}
-			velocityY = 0;
-			time = 40;
+			turn(x < centerX() ? 1 : -1, 0, velocity);
 			return;
 		} 
 		if (bottomBound - y < 6 && velocityY != 0) {
-			if (x < 250) {
-				velocityX = velocity;
-			} else {
-				velocityX = -velocity;
-			}
-			velocityY = 0;
-			time = 40;
+			turn(x < centerX() ? 1 : -1, 0, velocity);
 			return;
 		}
 		
@@ -197,22 +82,22 @@ public class PlayerAI extends Player {
 		if (time == 0) {
 			int rando = rand.nextInt(4);
 			if (rando == 0 && velocityX != velocity) {
-				if (x > 6) {
+				if (x > 6 && clear(-1, 0, REACT)) {
 					velocityX = -velocity;
 					velocityY = 0;
 				}
 			} else if (rando == 1 && velocityX != -velocity) {
-				if (rightBound - x > 6) {
+				if (rightBound - x > 6 && clear(1, 0, REACT)) {
 					velocityX = velocity;
 					velocityY = 0;
 				}
 			} else if (rando == 2 && velocityY != velocity) {
-				if (y > 6) {
+				if (y > 6 && clear(0, -1, REACT)) {
 					velocityX = 0;
 					velocityY = -velocity;
 				}
 			} else if (rando == 3 && velocityY != -velocity) {
-				if (bottomBound - y > 6) {
+				if (bottomBound - y > 6 && clear(0, 1, REACT)) {
 					velocityX = 0;
 					velocityY = velocity;
 				}
@@ -222,6 +107,52 @@ public class PlayerAI extends Player {
 		time--;		
 	}
 	
+	// distance to the nearest trail or grid edge in a direction, up to max
+	private int look(int dx, int dy, int max) {
+		if (grid == null) {
+			return max;
+		}
+		return grid.distance(x, y, dx, dy, max);
+	}
+	
+	// checks that no trail lies within the given distance in a direction
+	private boolean clear(int dx, int dy, int distance) {
+		return look(dx, dy, distance) >= distance;
+	}
+	
+	// the middle of the court, derived from the bounds the AI is clipped to
+	private int centerX() {
+		return (rightBound + width) / 2;
+	}
+	
+	private int centerY() {
+		return (bottomBound + height) / 2;
+	}
+	
+	// heads in a new direction and restarts the random-turn countdown
+	private void turn(int dx, int dy, int velocity) {
+		velocityX = dx * velocity;
+		velocityY = dy * velocity;
+		time = 40;
+	}
+	
+	// also copies the turn countdown and the random generator
+	@Override
+	Player save() {
+		PlayerAI s = (PlayerAI) super.save();
+		s.rand = new CopyableRandom(0);
+		s.rand.setState(rand.getState());
+		return s;
+	}
+	
+	@Override
+	void restore(Player s) {
+		super.restore(s);
+		PlayerAI ai = (PlayerAI) s;
+		time = ai.time;
+		rand.setState(ai.rand.getState());
+	}
+	
 	// moves the Player based on its conditions
 	public void move() {		
 		int a = x;
@@ -232,24 +163,7 @@ public class PlayerAI extends Player {
 		if (!jump) {
 			x += velocityX;
 			y += velocityY;
-			if (lines.size() > 1) {
-				Shape l1 = lines.get(lines.size() - 2);
-				Shape l2 = lines.get(lines.size() - 1);
-				if (a == l1.getStartX() && 
-						l1.getEndY() == l2.getStartY()) {
-					lines.add(new Line(l1.getStartX(), l1.getStartY(), 
-							l2.getEndX(), l2.getEndY()));
-					lines.remove(lines.size() - 2);
-					lines.remove(lines.size() - 2);
-				} else if (b == l1.getStartY() && 
-						l1.getEndX() == l2.getStartX()) {
-					lines.add(new Line(l1.getStartX(), l1.getStartY(), 
-							l2.getEndX(), l2.getEndY()));
-					lines.remove(lines.size() - 2);
-					lines.remove(lines.size() - 2);
-				} 
-			}
-			lines.add(new Line(a, b, x, y));
+			addSegment(a, b, x, y);
 		} else {
 			if (velocityX > 0) {
 				x += JUMPHEIGHT;
@@ -264,6 +178,7 @@ public class PlayerAI extends Player {
 		}
 		accelerate();
 		clip();
+		markMoved(a, b);
 	}
 }
 
@@ -0,0 +1,248 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * A recorded match: its seed, court and player setup, and every input in
+ * step order. Written by {@link ReplayRecorder}.
+ * <p>
+ * File layout: the magic bytes {@code TRNR}, a version byte, then varints
+ * for the grid size, the court bounds, the zigzag-encoded seed and the
+ * number of human and AI players. Inputs follow as pairs of varints (steps
+ * since the previous input, then {@code player << 3 | action}); the last
+ * pair carries the {@link #END} action and the steps to the end of the
+ * match.
+ */
+public final class Replay {
+
+	static final byte[] MAGIC = {'T', 'R', 'N', 'R'};
+	// 2: spawn points are placed by SpawnHash, so version 1 files replay
+	// from different starting positions and are refused
+	static final int VERSION = 2;
+
+	// action codes; turns use the ordinal of their Direction
+	static final int ACTION_BITS = 3;
+	static final int JUMP = 4;
+	static final int BOOST = 5;
+	static final int END = 6;
+
+	// largest court side and player count a replay may ask for
+	static final int MAX_COURT = 8192;
+	static final int MAX_PLAYERS = 4096;
+
+	private final int gridWidth;
+	private final int gridHeight;
+	private final int width;
+	private final int height;
+	private final long seed;
+	private final int humans;
+	private final int ais;
+	private final long length;
+
+	// inputs in step order
+	private final long[] ticks;
+	private final int[] players;
+	private final int[] actions;
+
+	private Replay(int gridWidth, int gridHeight, int width, int height,
+			long seed, int humans, int ais, long length,
+			long[] ticks, int[] players, int[] actions) {
+		this.gridWidth = gridWidth;
+		this.gridHeight = gridHeight;
+		this.width = width;
+		this.height = height;
+		this.seed = seed;
+		this.humans = humans;
+		this.ais = ais;
+		this.length = length;
+		this.ticks = ticks;
+		this.players = players;
+		this.actions = actions;
+	}
+
+	/**
+	 * Reads a replay file.
+	 *
+	 * @param file the file to read
+	 * @return the decoded replay
+	 * @throws IOException if the file cannot be read or is not a replay
+	 */
+	public static Replay read(Path file) throws IOException {
+		return read(Files.readAllBytes(file));
+	}
+
+	/**
+	 * Decodes replay file contents.
+	 *
+	 * @param data the encoded replay
+	 * @return the decoded replay
+	 * @throws IOException if the data is not a valid replay
+	 */
+	public static Replay read(byte[] data) throws IOException {
+		if (data == null || data.length < MAGIC.length + 1
+				|| !Arrays.equals(Arrays.copyOf(data, MAGIC.length), MAGIC)) {
+			throw new IOException("not a replay file");
+		}
+		if (data[MAGIC.length] != VERSION) {
+			throw new IOException("unsupported replay version " + data[MAGIC.length]);
+		}
+		int[] pos = {MAGIC.length + 1};
+		long gw = readVarint(data, pos);
+		long gh = readVarint(data, pos);
+		long w = readVarint(data, pos);
+		long h = readVarint(data, pos);
+		long z = readVarint(data, pos);
+		long seed = (z >>> 1) ^ -(z & 1);
+		long hs = readVarint(data, pos);
+		long as = readVarint(data, pos);
+		// check on the raw values, before a cast can wrap them, so a corrupt
+		// file cannot make start() allocate a huge court or player array
+		if (gw <= 0 || gw > MAX_COURT || gh <= 0 || gh > MAX_COURT
+				|| w <= 0 || w > gw || h <= 0 || h > gh
+				|| hs < 0 || as < 0 || hs + as > MAX_PLAYERS) {
+			throw new IOException("corrupt replay header");
+		}
+		int gridWidth = (int) gw;
+		int gridHeight = (int) gh;
+		int width = (int) w;
+		int height = (int) h;
+		int humans = (int) hs;
+		int ais = (int) as;
+
+		long[] ticks = new long[16];
+		int[] players = new int[16];
+		int[] actions = new int[16];
+		int n = 0;
+		long tick = 0;
+		while (true) {
+			tick += readVarint(data, pos);
+			long code = readVarint(data, pos);
+			int action = (int) (code & ((1 << ACTION_BITS) - 1));
+			if (action == END) {
+				break;
+			}
+			// check the player on the long value; a cast could wrap negative
+			if (action > END || code >>> ACTION_BITS >= (long) humans + ais) {
+				throw new IOException("corrupt replay input at byte " + pos[0]);
+			}
+			int player = (int) (code >>> ACTION_BITS);
+			if (n == ticks.length) {
+				ticks = Arrays.copyOf(ticks, n * 2);
+				players = Arrays.copyOf(players, n * 2);
+				actions = Arrays.copyOf(actions, n * 2);
+			}
+			ticks[n] = tick;
+			players[n] = player;
+			actions[n] = action;
+			n++;
+		}
+		return new Replay(gridWidth, gridHeight, width, height, seed, humans,
+				ais, tick, Arrays.copyOf(ticks, n), Arrays.copyOf(players, n),
+				Arrays.copyOf(actions, n));
+	}
+
+	/**
+	 * Returns the number of steps the match lasted.
+	 *
+	 * @return the match length in steps
+	 */
+	public long getLength() {
+		return length;
+	}
+
+	/**
+	 * Returns the number of recorded inputs.
+	 *
+	 * @return the input count
+	 */
+	public int getInputCount() {
+		return ticks.length;
+	}
+
+	/**
+	 * Sets up a fresh headless simulation at the start of the match.
+	 *
+	 * @return the simulation, ready to step
+	 */
+	public Simulation start() {
+		Simulation sim = new Simulation(gridWidth, gridHeight);
+		sim.setBounds(width, height);
+		sim.start(seed, humans, ais);
+		return sim;
+	}
+
+	/**
+	 * Applies the inputs recorded before the simulation's current step.
+	 *
+	 * @param sim a simulation created by {@link #start()}
+	 * @param next the index of the first input not applied yet
+	 * @return the index of the first input still to come
+	 */
+	public int applyInputs(Simulation sim, int next) {
+		Player[] ps = sim.getPlayers();
+		while (next < ticks.length && ticks[next] == sim.getTick()) {
+			Player p = ps[players[next]];
+			int action = actions[next];
+			if (action == JUMP) {
+				sim.jump(p);
+			} else if (action == BOOST) {
+				sim.boost(p);
+			} else {
+				sim.turn(p, Direction.values()[action]);
+			}
+			next++;
+		}
+		return next;
+	}
+
+	/**
+	 * Re-simulates the whole match headlessly as fast as possible.
+	 *
+	 * @return the simulation in its final state
+	 */
+	public Simulation play() {
+		Simulation sim = start();
+		int next = 0;
+		while (sim.getTick() < length) {
+			next = applyInputs(sim, next);
+			sim.step();
+		}
+		return sim;
+	}
+
+	// reads an unsigned LEB128 varint and advances the position
+	private static long readVarint(byte[] data, int[] pos) throws IOException {
+		long v = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			if (pos[0] >= data.length) {
+				throw new IOException("truncated replay");
+			}
+			int b = data[pos[0]++];
+			v |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return v;
+			}
+		}
+		throw new IOException("malformed varint in replay");
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.err.println("usage: java Replay <file>");
+			return;
+		}
+		Replay replay = read(Paths.get(args[0]));
+		long start = System.nanoTime();
+		Simulation sim = replay.play();
+		long micros = (System.nanoTime() - start) / 1000;
+		System.out.println(replay.getLength() + " steps, " + replay.getInputCount()
+				+ " inputs, replayed in " + micros + " us");
+		Player[] ps = sim.getPlayers();
+		for (int i = 0; i < ps.length; i++) {
+			System.out.println("  player " + (i + 1) + ": "
+					+ (ps[i].getAlive() ? "alive" : "crashed (" + ps[i].getCause() + ")"));
+		}
+	}
+}
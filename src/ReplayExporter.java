@@ -0,0 +1,172 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Renders a {@link Replay} to a numbered sequence of PNG images without a
+ * display.
+ * <p>
+ * The match is re-simulated on the calling thread and drawn the way
+ * {@link TronMap} draws it: a {@link TrailLayer} over the black court with
+ * the heads on top. Drawing is incremental and cheap; PNG encoding is not,
+ * so finished images are handed to a pool of encoder threads, each with
+ * its own {@link PngWriter}. Images come from a fixed set of buffers that
+ * return to the set once encoded, so memory stays bounded however long the
+ * match is, and the simulation waits whenever every buffer is still queued
+ * for encoding.
+ * <p>
+ * Frames are written as {@code frame_000000.png}, {@code frame_000001.png}
+ * and so on; the first shows the start of the match and the last its end.
+ */
+public class ReplayExporter {
+
+	private static final Color BACKGROUND = Color.BLACK;
+
+	// deflate level; trails on a flat court compress well even at the fastest
+	private static final int DEFLATE_LEVEL = 1;
+
+	private final int stride;
+	private final int threads;
+
+	/**
+	 * Creates an exporter.
+	 *
+	 * @param stride the number of steps between frames, at least 1
+	 * @param threads the number of encoder threads, at least 1
+	 */
+	public ReplayExporter(int stride, int threads) {
+		if (stride < 1 || threads < 1) {
+			throw new IllegalArgumentException("stride and threads must be positive");
+		}
+		this.stride = stride;
+		this.threads = threads;
+	}
+
+	/**
+	 * Renders a replay into a directory, creating it if needed.
+	 *
+	 * @param replay the match to render
+	 * @param dir the directory to write the frames to
+	 * @return the number of frames written
+	 * @throws IOException if a frame cannot be encoded or written
+	 */
+	public int export(Replay replay, Path dir) throws IOException {
+		Files.createDirectories(dir);
+		Simulation sim = replay.start();
+		int width = sim.getArenaWidth();
+		int height = sim.getArenaHeight();
+		TrailLayer layer = new TrailLayer(width, height, BACKGROUND);
+
+		// encoders finish with a buffer before it is drawn into again
+		BlockingQueue<BufferedImage> free = new ArrayBlockingQueue<>(2 * threads);
+		for (int i = 0; i < 2 * threads; i++) {
+			free.add(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB));
+		}
+		AtomicReference<IOException> failure = new AtomicReference<>();
+		// one encoder per pool thread
+		Queue<PngWriter> encoders = new ConcurrentLinkedQueue<>();
+		ThreadLocal<PngWriter> writers = ThreadLocal.withInitial(() -> {
+			PngWriter w = new PngWriter(DEFLATE_LEVEL);
+			encoders.add(w);
+			return w;
+		});
+		ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+			Thread t = new Thread(r, "ReplayExporter");
+			t.setDaemon(true);
+			return t;
+		});
+
+		int frames = 0;
+		try {
+			int next = 0;
+			while (true) {
+				if (sim.getTick() % stride == 0 || sim.getTick() == replay.getLength()) {
+					if (failure.get() != null) {
+						break;
+					}
+					BufferedImage img = free.take();
+					draw(img, layer, sim.getPlayers());
+					Path file = dir.resolve(String.format("frame_%06d.png", frames++));
+					pool.execute(() -> {
+						try {
+							if (failure.get() == null) {
+								writers.get().write(img, file);
+							}
+						} catch (IOException e) {
+							failure.compareAndSet(null, e);
+						} finally {
+							free.add(img);
+						}
+					});
+				}
+				if (sim.getTick() >= replay.getLength()) {
+					break;
+				}
+				next = replay.applyInputs(sim, next);
+				sim.step();
+			}
+			pool.shutdown();
+			pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("export interrupted after " + frames + " frames");
+		} finally {
+			pool.shutdownNow();
+			if (pool.isTerminated()) {
+				for (PngWriter w : encoders) {
+					w.dispose();
+				}
+			}
+			layer.dispose();
+		}
+		if (failure.get() != null) {
+			throw failure.get();
+		}
+		return frames;
+	}
+
+	// draws the court as TronMap does: trails, then the heads on top
+	static void draw(BufferedImage img, TrailLayer layer, Player[] players) {
+		Graphics2D g = img.createGraphics();
+		try {
+			layer.paint(g, players, null);
+			for (Player p : players) {
+				if (p != null) {
+					p.drawHead(g);
+				}
+			}
+		} finally {
+			g.dispose();
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("usage: java ReplayExporter <replay> <dir> [stride] [threads]");
+			return;
+		}
+		System.setProperty("java.awt.headless", "true");
+		int stride = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+		int threads = args.length > 3 ? Integer.parseInt(args[3])
+				: Runtime.getRuntime().availableProcessors();
+		Replay replay = Replay.read(Paths.get(args[0]));
+		long start = System.nanoTime();
+		int frames = new ReplayExporter(stride, threads).export(replay, Paths.get(args[1]));
+		long millis = (System.nanoTime() - start) / 1000000;
+		System.out.println(frames + " frames of " + replay.getLength() + " steps written to "
+				+ args[1] + " in " + millis + " ms");
+	}
+}
@@ -0,0 +1,113 @@
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Records the inputs of one match in the compact binary replay format read
+ * by {@link Replay}.
+ * <p>
+ * Only the match seed and the player inputs (turns, jumps and boosts) are
+ * kept; everything else is re-simulated on playback. Each input is stored
+ * as two varints, the number of steps since the previous input and the
+ * player index packed with the action, so a typical input costs 2-3 bytes
+ * and a ten-minute match a few kilobytes.
+ */
+public class ReplayRecorder {
+
+	private final ByteArrayOutputStream events = new ByteArrayOutputStream();
+
+	private boolean recording = false;
+	private long seed;
+	private int humans;
+	private int ais;
+	private long lastTick;
+
+	/**
+	 * Starts a new recording, dropping any unfinished one.
+	 *
+	 * @param seed the match seed
+	 * @param humans the number of human players
+	 * @param ais the number of AI players
+	 */
+	public void begin(long seed, int humans, int ais) {
+		events.reset();
+		this.seed = seed;
+		this.humans = humans;
+		this.ais = ais;
+		this.lastTick = 0;
+		this.recording = true;
+	}
+
+	/**
+	 * Drops the current recording without producing a replay.
+	 */
+	public void cancel() {
+		recording = false;
+		events.reset();
+	}
+
+	/**
+	 * Checks whether a match is being recorded.
+	 *
+	 * @return true between {@link #begin} and {@link #finish}
+	 */
+	public boolean isRecording() {
+		return recording;
+	}
+
+	/**
+	 * Records an input applied before the given step.
+	 *
+	 * @param tick the number of steps already played
+	 * @param player the index of the player in spawn order
+	 * @param action the action code, see {@link Replay}
+	 */
+	public void record(long tick, int player, int action) {
+		if (!recording) {
+			return;
+		}
+		writeVarint(events, tick - lastTick);
+		writeVarint(events, ((long) player << Replay.ACTION_BITS) | action);
+		lastTick = tick;
+	}
+
+	/**
+	 * Ends the recording and returns the encoded replay.
+	 *
+	 * @param tick the number of steps the match lasted
+	 * @param gridWidth the width of the occupancy grid
+	 * @param gridHeight the height of the occupancy grid
+	 * @param width the court width players were clipped to
+	 * @param height the court height players were clipped to
+	 * @return the replay file contents, or null if nothing was recorded
+	 */
+	public byte[] finish(long tick, int gridWidth, int gridHeight,
+			int width, int height) {
+		if (!recording) {
+			return null;
+		}
+		recording = false;
+		ByteArrayOutputStream out = new ByteArrayOutputStream(events.size() + 32);
+		out.write(Replay.MAGIC, 0, Replay.MAGIC.length);
+		out.write(Replay.VERSION);
+		writeVarint(out, gridWidth);
+		writeVarint(out, gridHeight);
+		writeVarint(out, width);
+		writeVarint(out, height);
+		writeVarint(out, (seed << 1) ^ (seed >> 63));
+		writeVarint(out, humans);
+		writeVarint(out, ais);
+		byte[] recorded = events.toByteArray();
+		out.write(recorded, 0, recorded.length);
+		writeVarint(out, tick - lastTick);
+		writeVarint(out, Replay.END);
+		return out.toByteArray();
+	}
+
+	// writes an unsigned LEB128 varint, 7 bits per byte
+	static void writeVarint(ByteArrayOutputStream out, long v) {
+		while ((v & ~0x7FL) != 0) {
+			out.write((int) ((v & 0x7F) | 0x80));
+			v >>>= 7;
+		}
+		out.write((int) v);
+	}
+}
@@ -10,6 +10,8 @@ public class Score {
 	// list of scores (mutable, internal)
 	private final List<Integer> highs;
 	private final ScoreRepository repository;
+	// every score the repository has kept, for ranks and percentiles
+	private final Leaderboard board = new Leaderboard();
 
     // constructor creates list of integers from a file
     public Score(String filename) {
@@ -23,18 +25,19 @@ public class Score {
         }
         this.repository = repository;
         this.highs = new ArrayList<Integer>();
-		// Read existing high scores; tolerate missing/corrupt lines and IO failures
+		// Stream existing scores with their counts through a bounded heap,
+		// keeping the largest TOP_N in any order, and into the leaderboard;
+		// tolerate missing/corrupt lines and IO failures
+		TopScores top = new TopScores(TOP_N);
 		try {
-			List<Integer> loaded = repository.read();
-			if (loaded != null) {
-				for (Integer v : loaded) {
-					if (highs.size() >= TOP_N) break;
-					highs.add(v == null ? 0 : v);
-				}
-			}
+			repository.forEachCount((score, times) -> {
+				top.add(score, times);
+				board.add(score, times);
+			});
 		} catch (IOException e) {
 			// ignore; start with defaults below
 		}
+		highs.addAll(top.toList());
 		// Ensure we always have TOP_N entries to match UI expectations
 		while (highs.size() < TOP_N) {
 			highs.add(0);
@@ -44,6 +47,7 @@ public class Score {
 	// adds a new score into the list, sorts the list,
 	// and updates the .txt file
     public void addHighScore(int score) throws IOException {
+        board.accept(score);
         highs.add(score);
 		// sort descending in-place
 		highs.sort(Collections.reverseOrder());
@@ -53,7 +57,28 @@ public class Score {
 		}
 
 		// persist via repository
-		repository.write(highs);
+		repository.add(score, highs);
+	}
+
+	// returns the place of a score among every score recorded, 1 for the best
+	public long getRank(int score) {
+		return board.rank(score);
+	}
+
+	// returns the percentage of recorded scores that are at most the given one
+	public double getPercentile(int score) {
+		return board.percentile(score);
+	}
+
+	// returns the lowest score that at least the given percentage of recorded
+	// scores did not beat; throws IllegalStateException when none are recorded
+	public int getScoreAtPercentile(double percent) {
+		return board.scoreAtPercentile(percent);
+	}
+
+	// returns the number of scores recorded
+	public long getRuns() {
+		return board.size();
 	}
 
 	// returns a defensive copy of the list of high scores
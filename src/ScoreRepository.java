@@ -1,5 +1,6 @@
 import java.io.IOException;
 import java.util.List;
+import java.util.function.IntConsumer;
 
 // Persistence port for high scores (Repository/DAO pattern)
 public interface ScoreRepository {
@@ -7,4 +8,31 @@ public interface ScoreRepository {
     List<Integer> read() throws IOException;
     // Persist the provided list of scores (non-null). Implementations may overwrite the entire store.
     void write(List<Integer> scores) throws IOException;
+    // Stream every stored score to the consumer without building a list; null entries
+    // count as 0. The default reads the list; stores with large files override it.
+    default void forEach(IntConsumer sink) throws IOException {
+        List<Integer> scores = read();
+        if (scores != null) {
+            for (Integer v : scores) {
+                sink.accept(v == null ? 0 : v);
+            }
+        }
+    }
+    // Stream every stored score with the number of runs that scored it; a score may come
+    // more than once. The default counts each score from forEach once; stores that keep
+    // counts override it, so loading costs O(distinct scores) rather than O(runs).
+    default void forEachCount(CountSink sink) throws IOException {
+        forEach(score -> sink.accept(score, 1));
+    }
+    // Record one new score; top is the full list after adding it. The default rewrites
+    // the whole store; journaled stores append just the new score.
+    default void add(int score, List<Integer> top) throws IOException {
+        write(top);
+    }
+
+    // Receives a score and how many runs scored it
+    @FunctionalInterface
+    interface CountSink {
+        void accept(int score, long times);
+    }
 }
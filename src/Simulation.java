@@ -0,0 +1,520 @@
+import java.awt.Color;
+import java.util.Random;
+
+/**
+ * Headless game engine: owns the players on the court, the court bounds,
+ * the order players move in and crash resolution.
+ * <p>
+ * Nothing here touches Swing, so a match can be stepped from any thread
+ * and as fast as the CPU allows. The {@link TronMap} levels drive one
+ * simulation each from their timer and only draw its state. Steps and
+ * inputs are synchronized on the simulation.
+ * <p>
+ * A match started with {@link #start(long, int, int)} is fully determined by
+ * its seed and the inputs fed to it, which is what {@link Replay} relies on.
+ */
+public class Simulation {
+
+	// length of one step in milliseconds when played in real time
+	public static final int TICK_MILLIS = 20;
+	
+	// player colors in spawn order; later players get generated hues
+	public static final Color[] COLORS = {Color.CYAN, Color.PINK,
+			Color.WHITE, Color.YELLOW, Color.BLUE, Color.ORANGE, Color.RED,
+			Color.GREEN};
+
+	// candidate starts drawn per player before a crowded one is accepted
+	private static final int SPAWN_TRIES = 16;
+
+	// court bounds players are clipped to
+	private int width;
+	private int height;
+
+	// initial velocity
+	private int velocity = 3;
+
+	private final int gridWidth;
+	private final int gridHeight;
+	private final TrailIndex trails;
+	private final Random rand = new Random();
+	// timers driven by the step counter, always at the current tick
+	private final TimerWheel timers = new TimerWheel(64);
+
+	private Player[] players = new Player[0];
+	private long tick = 0;
+
+	// records inputs of matches started with a seed, if set
+	private ReplayRecorder recorder;
+
+	// receives a frame after every step for a render thread, if set
+	private FrameExchange frames;
+	// replaced whenever the state jumps, so renderers start over
+	private Object era = new Object();
+
+	/**
+	 * Creates a simulation for a court of the given size.
+	 *
+	 * @param width the court width in pixels
+	 * @param height the court height in pixels
+	 */
+	public Simulation(int width, int height) {
+		this.width = width;
+		this.height = height;
+		this.gridWidth = width;
+		this.gridHeight = height;
+		this.trails = new TrailIndex(width, height);
+	}
+
+	/**
+	 * Starts a new match from a seed: humans spawn first, then AIs, at
+	 * positions drawn from the seed; each AI gets its own generator seeded
+	 * from it too. Starts a new recording if a recorder is set.
+	 *
+	 * @param seed the match seed
+	 * @param humans the number of keyboard players
+	 * @param ais the number of computer players
+	 * @return the players in spawn order
+	 */
+	public synchronized Player[] start(long seed, int humans, int ais) {
+		if (humans < 0 || ais < 0) {
+			throw new IllegalArgumentException("player counts must not be negative");
+		}
+		rand.setSeed(seed);
+		Player[] ps = new Player[humans + ais];
+		SpawnHash spawns = new SpawnHash(ps.length);
+		for (int i = 0; i < ps.length; i++) {
+			int[] s = getRandomStart();
+			for (int t = 1; t < SPAWN_TRIES && spawns.crowded(s[0], s[1]); t++) {
+				s = getRandomStart();
+			}
+			spawns.add(s[0], s[1]);
+			Color c = getColor(i);
+			if (i < humans) {
+				ps[i] = new PlayerHuman(s[0], s[1], s[2], s[3], c);
+			} else {
+				ps[i] = new PlayerAI(s[0], s[1], s[2], s[3], c,
+						new CopyableRandom(rand.nextLong()));
+			}
+		}
+		setPlayers(ps);
+		if (recorder != null) {
+			recorder.begin(seed, humans, ais);
+		}
+		return ps;
+	}
+
+	/**
+	 * Returns the color of the player at a spawn index: the classic colors
+	 * first, then hues spread by the golden ratio so neighbours differ.
+	 *
+	 * @param i the spawn index
+	 * @return the player color
+	 */
+	public static Color getColor(int i) {
+		if (i < COLORS.length) {
+			return COLORS[i];
+		}
+		float hue = (i * 0.618034f) % 1f;
+		return Color.getHSBColor(hue, 0.75f, 1f);
+	}
+
+	/**
+	 * Returns the court width the simulation was created with.
+	 *
+	 * @return the arena width in pixels
+	 */
+	public int getArenaWidth() {
+		return gridWidth;
+	}
+
+	/**
+	 * Returns the court height the simulation was created with.
+	 *
+	 * @return the arena height in pixels
+	 */
+	public int getArenaHeight() {
+		return gridHeight;
+	}
+
+	/**
+	 * Sets the recorder that captures the inputs of matches started with
+	 * {@link #start(long, int, int)}, or null to stop recording.
+	 *
+	 * @param recorder the recorder
+	 */
+	public synchronized void setRecorder(ReplayRecorder recorder) {
+		this.recorder = recorder;
+	}
+
+	/**
+	 * Sets the exchange a {@link Frame} is published to after every step,
+	 * when players are set and when a snapshot is restored, or null to
+	 * stop publishing. The exchange must have no other writer.
+	 *
+	 * @param frames the exchange
+	 */
+	public synchronized void setFrameExchange(FrameExchange frames) {
+		this.frames = frames;
+		publish();
+	}
+
+	/**
+	 * Ends the current recording.
+	 *
+	 * @return the encoded replay, or null if nothing is being recorded
+	 */
+	public synchronized byte[] finishRecording() {
+		if (recorder == null) {
+			return null;
+		}
+		return recorder.finish(tick, gridWidth, gridHeight, width, height);
+	}
+
+	/**
+	 * Replaces the players on the court and clears all trails. Null entries
+	 * are allowed and skipped. Players set this way are not recorded.
+	 *
+	 * @param players the new players
+	 */
+	public synchronized void setPlayers(Player[] players) {
+		if (players == null) {
+			throw new IllegalArgumentException("players must not be null");
+		}
+		this.players = players;
+		if (recorder != null) {
+			recorder.cancel();
+		}
+		trails.clear();
+		era = new Object();
+		tick = 0;
+		timers.reset(0);
+		for (Player p: players) {
+			if (p != null) {
+				p.setGrid(trails.getGrid());
+				p.setTimers(timers);
+				p.setBounds(width, height);
+			}
+		}
+		publish();
+	}
+
+	/**
+	 * Returns the players on the court. The array is shared, not copied.
+	 *
+	 * @return the current players
+	 */
+	public Player[] getPlayers() {
+		return players;
+	}
+
+	/**
+	 * Changes the bounds players are clipped to, e.g. when the court
+	 * component is resized. The bounds never grow past the court the
+	 * simulation was created for, so every trail a player can leave is in
+	 * the occupancy grid and can cause a crash.
+	 *
+	 * @param width the court width in pixels
+	 * @param height the court height in pixels
+	 */
+	public synchronized void setBounds(int width, int height) {
+		this.width = Math.min(width, gridWidth);
+		this.height = Math.min(height, gridHeight);
+	}
+
+	/**
+	 * Returns the initial speed of players.
+	 *
+	 * @return the velocity in pixels per step
+	 */
+	public int getVelocity() {
+		return velocity;
+	}
+
+	/**
+	 * Returns the number of steps since the players were set.
+	 *
+	 * @return the step count
+	 */
+	public synchronized long getTick() {
+		return tick;
+	}
+
+	/**
+	 * Returns the timers driven by this simulation's step counter. A task
+	 * scheduled with a delay of {@code n} runs at the end of the
+	 * {@code n}-th step from now; setting players or restoring a snapshot
+	 * drops pending tasks.
+	 *
+	 * @return the timer wheel
+	 */
+	public TimerWheel getTimers() {
+		return timers;
+	}
+
+	/**
+	 * Advances the match by one step: every player moves in array order,
+	 * then all crashes are resolved at once, then due timers run.
+	 */
+	public synchronized void step() {
+		for (Player k: players) {
+			if (k != null) {
+				k.setBounds(width, height);
+				k.move();
+			}
+		}
+		trails.resolveCrashes(players);
+		tick++;
+		timers.advance();
+		publish();
+	}
+
+	/**
+	 * Advances the step counter and runs due timers without moving
+	 * anyone, e.g. while a level waits to hand over to the next one.
+	 */
+	public synchronized void idle() {
+		tick++;
+		timers.advance();
+	}
+
+	/**
+	 * Captures the full state of the match in O(players): trails and the
+	 * occupancy grid are shared copy-on-write, not copied.
+	 *
+	 * @return the snapshot
+	 */
+	public synchronized Snapshot snapshot() {
+		Player[] saved = new Player[players.length];
+		for (int i = 0; i < players.length; i++) {
+			if (players[i] != null) {
+				saved[i] = players[i].save();
+			}
+		}
+		return new Snapshot(players, saved, trails.getGrid().copy(), tick,
+				width, height);
+	}
+
+	/**
+	 * Rewinds the match to a snapshot taken from it. The same snapshot can
+	 * be restored any number of times. Restoring drops a recording in
+	 * progress, since its inputs no longer describe the match, and timers
+	 * other than the players' boosts.
+	 *
+	 * @param snap the snapshot to restore
+	 */
+	public synchronized void restore(Snapshot snap) {
+		if (snap.players != players) {
+			throw new IllegalArgumentException("snapshot belongs to another match");
+		}
+		for (int i = 0; i < players.length; i++) {
+			if (players[i] != null) {
+				players[i].restore(snap.saved[i]);
+			}
+		}
+		trails.getGrid().restore(snap.grid);
+		era = new Object();
+		tick = snap.tick;
+		timers.reset(tick);
+		for (Player p: players) {
+			if (p != null) {
+				p.rescheduleBoost();
+			}
+		}
+		width = snap.width;
+		height = snap.height;
+		if (recorder != null) {
+			recorder.cancel();
+		}
+		publish();
+	}
+
+	/**
+	 * Counts the players that are still alive.
+	 *
+	 * @return the number of living players
+	 */
+	public synchronized int countAlive() {
+		int alive = 0;
+		for (Player p: players) {
+			if (p != null && p.getAlive()) {
+				alive++;
+			}
+		}
+		return alive;
+	}
+
+	/**
+	 * Steers a living player. Reversing straight into its own trail is
+	 * ignored, as before.
+	 *
+	 * @param p the player to steer
+	 * @param d the new direction
+	 */
+	public synchronized void turn(Player p, Direction d) {
+		if (!p.getAlive()) {
+			return;
+		}
+		record(p, d.ordinal());
+		switch (d) {
+		case LEFT:
+			p.setXVelocity(-velocity);
+			p.setYVelocity(0);
+			break;
+		case RIGHT:
+			p.setXVelocity(velocity);
+			p.setYVelocity(0);
+			break;
+		case UP:
+			p.setYVelocity(-velocity);
+			p.setXVelocity(0);
+			break;
+		case DOWN:
+			p.setYVelocity(velocity);
+			p.setXVelocity(0);
+			break;
+		}
+	}
+
+	/**
+	 * Makes a living player jump on its next move.
+	 *
+	 * @param p the player
+	 */
+	public synchronized void jump(Player p) {
+		if (p.getAlive()) {
+			record(p, Replay.JUMP);
+			p.jump();
+		}
+	}
+
+	/**
+	 * Starts a boost for a living player if it has any left.
+	 *
+	 * @param p the player
+	 */
+	public synchronized void boost(Player p) {
+		if (p.getAlive()) {
+			record(p, Replay.BOOST);
+			p.startBoost();
+		}
+	}
+
+	// hands the current state to the render thread, if there is one
+	private void publish() {
+		if (frames != null) {
+			frames.back().capture(players, era, tick, System.nanoTime());
+			frames.publish();
+		}
+	}
+
+	// logs an input for the player's spawn index if a match is recorded
+	private void record(Player p, int action) {
+		if (recorder != null && recorder.isRecording()) {
+			for (int i = 0; i < players.length; i++) {
+				if (players[i] == p) {
+					recorder.record(tick, i, action);
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns a random start position and velocity for a player, as
+	 * {x, y, velocityX, velocityY}. Starts keep a tenth of the arena clear
+	 * along each edge and the player starts moving toward the center.
+	 *
+	 * @return the start position and velocity
+	 */
+	public synchronized int[] getRandomStart() {
+		int[] start = new int[4];
+		int marginX = gridWidth / 10;
+		int marginY = gridHeight / 10;
+		int xnew = marginX + rand.nextInt(Math.max(1, gridWidth - 2 * marginX));
+		int ynew = marginY + rand.nextInt(Math.max(1, gridHeight - 2 * marginY));
+		int ra = rand.nextInt(2);
+		int velx = 0;
+		int vely = 0;
+		if (ra == 0) {
+			if (xnew < gridWidth / 2) {
+				velx = velocity;
+			} else {
+				velx = -velocity;
+			}
+		} else {
+			if (ynew < gridHeight / 2) {
+				vely = velocity;
+			} else {
+				vely = -velocity;
+			}
+		}
+		start[0] = xnew;
+		start[1] = ynew;
+		start[2] = velx;
+		start[3] = vely;
+		return start;
+	}
+
+	// spatial hash of the starts placed so far, with cells as wide as the
+	// spacing wanted between starts, so a candidate is checked against the
+	// 3x3 cells around it instead of every earlier start
+	private class SpawnHash {
+		private final int spacing;
+		private final int cols;
+		private final int rows;
+		// first start in each cell (index + 1, 0 when empty)
+		private final int[] cells;
+		// next start in the same cell (index + 1, 0 at the end)
+		private final int[] next;
+		private final int[] xs;
+		private final int[] ys;
+		private int size = 0;
+
+		// spreads count starts so each has about a quarter of its fair share
+		// of the arena to itself
+		SpawnHash(int count) {
+			double share = (double) gridWidth * gridHeight / Math.max(1, count);
+			spacing = Math.max(1, (int) (Math.sqrt(share) / 2));
+			cols = gridWidth / spacing + 1;
+			rows = gridHeight / spacing + 1;
+			cells = new int[cols * rows];
+			next = new int[count];
+			xs = new int[count];
+			ys = new int[count];
+		}
+
+		// checks whether an earlier start lies within the spacing
+		boolean crowded(int x, int y) {
+			int cx = column(x);
+			int cy = row(y);
+			for (int by = Math.max(0, cy - 1); by <= Math.min(rows - 1, cy + 1); by++) {
+				for (int bx = Math.max(0, cx - 1); bx <= Math.min(cols - 1, cx + 1); bx++) {
+					for (int j = cells[by * cols + bx]; j != 0; j = next[j - 1]) {
+						long dx = xs[j - 1] - x;
+						long dy = ys[j - 1] - y;
+						if (dx * dx + dy * dy < (long) spacing * spacing) {
+							return true;
+						}
+					}
+				}
+			}
+			return false;
+		}
+
+		void add(int x, int y) {
+			int c = row(y) * cols + column(x);
+			xs[size] = x;
+			ys[size] = y;
+			next[size] = cells[c];
+			cells[c] = ++size;
+		}
+
+		private int column(int x) {
+			return Math.max(0, Math.min(cols - 1, x / spacing));
+		}
+
+		private int row(int y) {
+			return Math.max(0, Math.min(rows - 1, y / spacing));
+		}
+	}
+}
@@ -0,0 +1,38 @@
+/**
+ * The saved state of a match, taken by {@link Simulation#snapshot()} and
+ * put back with {@link Simulation#restore(Snapshot)}.
+ * <p>
+ * Player trails and the occupancy grid are shared copy-on-write with the
+ * live match, so taking a snapshot costs O(players) rather than O(trail
+ * length). A snapshot is never modified after it is taken.
+ */
+public final class Snapshot {
+
+	// the live players the snapshot was taken from
+	final Player[] players;
+	// copies of their state
+	final Player[] saved;
+	final OccupancyGrid grid;
+	final long tick;
+	final int width;
+	final int height;
+
+	Snapshot(Player[] players, Player[] saved, OccupancyGrid grid, long tick,
+			int width, int height) {
+		this.players = players;
+		this.saved = saved;
+		this.grid = grid;
+		this.tick = tick;
+		this.width = width;
+		this.height = height;
+	}
+
+	/**
+	 * Returns the step the snapshot was taken at.
+	 *
+	 * @return the step count
+	 */
+	public long getTick() {
+		return tick;
+	}
+}
@@ -0,0 +1,171 @@
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.imageio.ImageIO;
+
+/**
+ * One packed image holding many named sprites, as written by
+ * {@link AtlasPacker}.
+ * <p>
+ * The index is a text file with one {@code name x y width height} line per
+ * sprite; blank lines and lines starting with {@code #} are ignored. A
+ * sprite is drawn as a sub-rectangle blit from the shared atlas image, so
+ * every sprite comes from one decode and one (usually accelerated)
+ * surface.
+ */
+public class SpriteAtlas {
+
+	private final BufferedImage image;
+	// x, y, width, height per sprite name
+	private final Map<String, int[]> regions;
+	// sub-images handed out so far, sharing the atlas pixels
+	private final Map<String, BufferedImage> subimages = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates an atlas from its image and parsed index.
+	 *
+	 * @param image the packed image
+	 * @param regions x, y, width and height of every sprite by name
+	 */
+	public SpriteAtlas(BufferedImage image, Map<String, int[]> regions) {
+		if (image == null || regions == null) {
+			throw new IllegalArgumentException("image and regions are required");
+		}
+		for (Map.Entry<String, int[]> e : regions.entrySet()) {
+			int[] r = e.getValue();
+			if (r.length != 4 || r[0] < 0 || r[1] < 0 || r[2] <= 0 || r[3] <= 0
+					|| r[0] + r[2] > image.getWidth() || r[1] + r[3] > image.getHeight()) {
+				throw new IllegalArgumentException("region out of the atlas: " + e.getKey());
+			}
+		}
+		this.image = image;
+		this.regions = new HashMap<>(regions);
+	}
+
+	/**
+	 * Reads an atlas from the classpath.
+	 *
+	 * @param png the classpath path of the packed image
+	 * @param index the classpath path of the index
+	 * @return the atlas, or null if either resource does not exist
+	 * @throws IOException if a resource cannot be read or the index is malformed
+	 */
+	public static SpriteAtlas load(String png, String index) throws IOException {
+		try (InputStream in = SpriteAtlas.class.getResourceAsStream(index);
+				InputStream img = SpriteAtlas.class.getResourceAsStream(png)) {
+			if (in == null || img == null) {
+				return null;
+			}
+			Map<String, int[]> regions = readIndex(in);
+			BufferedImage image = ImageIO.read(img);
+			if (image == null) {
+				throw new IOException("Unreadable atlas image: " + png);
+			}
+			try {
+				return new SpriteAtlas(image, regions);
+			} catch (IllegalArgumentException e) {
+				throw new IOException("Atlas index does not match " + png + ": " + e.getMessage());
+			}
+		}
+	}
+
+	// parses "name x y width height" lines
+	static Map<String, int[]> readIndex(InputStream in) throws IOException {
+		Map<String, int[]> regions = new HashMap<>();
+		BufferedReader r = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+		String line;
+		int n = 0;
+		while ((line = r.readLine()) != null) {
+			n++;
+			line = line.trim();
+			if (line.isEmpty() || line.startsWith("#")) {
+				continue;
+			}
+			String[] f = line.split("\\s+");
+			if (f.length != 5) {
+				throw new IOException("Malformed atlas index line " + n + ": " + line);
+			}
+			try {
+				regions.put(f[0], new int[] {Integer.parseInt(f[1]),
+						Integer.parseInt(f[2]), Integer.parseInt(f[3]),
+						Integer.parseInt(f[4])});
+			} catch (NumberFormatException e) {
+				throw new IOException("Malformed atlas index line " + n + ": " + line);
+			}
+		}
+		return regions;
+	}
+
+	/**
+	 * Returns a copy of this atlas whose image is replaced, e.g. by one in
+	 * the screen's pixel format.
+	 *
+	 * @param converted the new image, the same size as this one's
+	 * @return the new atlas
+	 */
+	public SpriteAtlas withImage(BufferedImage converted) {
+		return new SpriteAtlas(converted, regions);
+	}
+
+	/**
+	 * Checks whether the atlas has a sprite.
+	 *
+	 * @param name the sprite name
+	 * @return true if the sprite is in the atlas
+	 */
+	public boolean contains(String name) {
+		return regions.containsKey(name);
+	}
+
+	/**
+	 * Draws a sprite with its upper-left corner at (x, y).
+	 *
+	 * @param g the graphics context
+	 * @param name the sprite name
+	 * @param x the x-coordinate to draw at
+	 * @param y the y-coordinate to draw at
+	 * @return false if the atlas has no such sprite
+	 */
+	public boolean draw(Graphics g, String name, int x, int y) {
+		int[] r = regions.get(name);
+		if (r == null) {
+			return false;
+		}
+		g.drawImage(image, x, y, x + r[2], y + r[3],
+				r[0], r[1], r[0] + r[2], r[1] + r[3], null);
+		return true;
+	}
+
+	/**
+	 * Returns a sprite as an image sharing the atlas pixels, e.g. for an
+	 * icon. The same image is returned for every call.
+	 *
+	 * @param name the sprite name
+	 * @return the sprite, or null if the atlas has no such sprite
+	 */
+	public BufferedImage get(String name) {
+		int[] r = regions.get(name);
+		if (r == null) {
+			return null;
+		}
+		return subimages.computeIfAbsent(name,
+				k -> image.getSubimage(r[0], r[1], r[2], r[3]));
+	}
+
+	/**
+	 * Returns the packed image.
+	 *
+	 * @return the atlas image
+	 */
+	public BufferedImage getImage() {
+		return image;
+	}
+}
@@ -0,0 +1,147 @@
+/**
+ * Hashed timer wheel driven by the simulation's step counter.
+ * <p>
+ * A task due at step {@code d} is linked into slot {@code d mod slots};
+ * each {@link #advance()} moves the wheel on by one step and runs the due
+ * tasks of the current slot, leaving later rounds in place. Scheduling and
+ * expiry are O(1) per task, timing is exact in steps and so deterministic,
+ * and entries are recycled through a free list so a running match does not
+ * allocate for its timers.
+ * <p>
+ * Tasks run on the thread that advances the wheel. A task may schedule new
+ * tasks or {@link #reset(long)} the wheel.
+ */
+public class TimerWheel {
+
+	private static final class Entry {
+		long deadline;
+		Runnable task;
+		Entry next;
+	}
+
+	private final Entry[] slots;
+	private final int mask;
+
+	private long now = 0;
+	private int size = 0;
+	// bumped by reset() so advance() notices when a task cleared the wheel
+	private int epoch = 0;
+	private Entry free;
+
+	/**
+	 * Creates an empty wheel at step 0.
+	 *
+	 * @param slots the number of slots, rounded up to a power of two
+	 */
+	public TimerWheel(int slots) {
+		if (slots <= 0) {
+			throw new IllegalArgumentException("slots must be positive");
+		}
+		int n = Integer.highestOneBit(slots);
+		if (n < slots) {
+			n <<= 1;
+		}
+		this.slots = new Entry[n];
+		this.mask = n - 1;
+	}
+
+	/**
+	 * Returns the step the wheel is at.
+	 *
+	 * @return the current step
+	 */
+	public long now() {
+		return now;
+	}
+
+	/**
+	 * Returns the number of tasks waiting to run.
+	 *
+	 * @return the pending task count
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Runs a task once the wheel has advanced the given number of steps.
+	 *
+	 * @param delay the number of steps to wait, at least 1
+	 * @param task the task to run
+	 */
+	public void schedule(long delay, Runnable task) {
+		if (task == null) {
+			throw new IllegalArgumentException("task must not be null");
+		}
+		Entry e = free;
+		if (e != null) {
+			free = e.next;
+		} else {
+			e = new Entry();
+		}
+		e.deadline = now + Math.max(1, delay);
+		e.task = task;
+		int s = (int) (e.deadline & mask);
+		e.next = slots[s];
+		slots[s] = e;
+		size++;
+	}
+
+	/**
+	 * Moves the wheel on by one step and runs every task due at it.
+	 */
+	public void advance() {
+		now++;
+		int s = (int) (now & mask);
+		Entry e = slots[s];
+		slots[s] = null;
+		int started = epoch;
+		while (e != null) {
+			Entry next = e.next;
+			if (e.deadline <= now) {
+				Runnable task = e.task;
+				recycle(e);
+				size--;
+				task.run();
+				if (epoch != started) {
+					// the task reset the wheel; the rest of this slot is gone
+					for (Entry r = next; r != null; ) {
+						Entry n = r.next;
+						recycle(r);
+						r = n;
+					}
+					return;
+				}
+			} else {
+				e.next = slots[s];
+				slots[s] = e;
+			}
+			e = next;
+		}
+	}
+
+	/**
+	 * Drops every pending task and sets the wheel to the given step.
+	 *
+	 * @param now the step to continue from
+	 */
+	public void reset(long now) {
+		for (int s = 0; s < slots.length; s++) {
+			for (Entry e = slots[s]; e != null; ) {
+				Entry n = e.next;
+				recycle(e);
+				e = n;
+			}
+			slots[s] = null;
+		}
+		this.now = now;
+		size = 0;
+		epoch++;
+	}
+
+	private void recycle(Entry e) {
+		e.task = null;
+		e.next = free;
+		free = e;
+	}
+}
@@ -0,0 +1,85 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+// Keeps the N largest scores fed to it in a bounded min-heap of primitives.
+// The smallest kept score sits at the root, so a score that does not make
+// the cut costs one comparison and one that does costs O(log N); n scores
+// take O(n log N) time and O(N) memory however many there are.
+public class TopScores implements IntConsumer {
+
+    private final int[] heap;
+    private int size;
+
+    public TopScores(int n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("n must be positive");
+        }
+        this.heap = new int[n];
+    }
+
+    @Override
+    public void accept(int score) {
+        if (size < heap.length) {
+            // sift up from the new leaf
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heap[parent] <= score) break;
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = score;
+        } else if (score > heap[0]) {
+            // replace the smallest and sift down
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && heap[child + 1] < heap[child]) child++;
+                if (heap[child] >= score) break;
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = score;
+        }
+    }
+
+    // Offers the same score several times; only up to N copies can be kept,
+    // so the cost does not grow with times
+    public void add(int score, long times) {
+        if (times < 0) {
+            throw new IllegalArgumentException("times must not be negative");
+        }
+        for (long n = Math.min(times, heap.length); n > 0; n--) {
+            accept(score);
+        }
+    }
+
+    // number of scores kept, at most N
+    public int size() {
+        return size;
+    }
+
+    // the kept scores, largest first
+    public int[] toArray() {
+        int[] out = Arrays.copyOf(heap, size);
+        Arrays.sort(out);
+        for (int i = 0, j = size - 1; i < j; i++, j--) {
+            int t = out[i];
+            out[i] = out[j];
+            out[j] = t;
+        }
+        return out;
+    }
+
+    // the kept scores, largest first
+    public List<Integer> toList() {
+        List<Integer> out = new ArrayList<Integer>(size);
+        for (int v : toArray()) {
+            out.add(v);
+        }
+        return out;
+    }
+}
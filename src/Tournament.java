@@ -0,0 +1,175 @@
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Batch runner that plays headless AI-vs-AI matches across all cores.
+ * <p>
+ * Each match puts a random number of {@link PlayerAI}s, 2 to 8 by default,
+ * on a court (500x500 by default) and plays by the story-mode rules until at
+ * most one is left. Large free-for-all arenas with hundreds of bots use the
+ * same runner with a bigger court and player range. Matches are split
+ * across a fork/join pool; every match draws its player count, spawn
+ * positions and AI decisions from its own seed, derived from the run seed
+ * and the match number, so a run reports the same numbers whatever the
+ * thread count.
+ * <p>
+ * Usage: {@code java Tournament [matches] [seed] [threads] [width height
+ * minPlayers maxPlayers]}
+ */
+public class Tournament {
+
+	public static final int MIN_PLAYERS = 2;
+	public static final int MAX_PLAYERS = 8;
+
+	// court dimensions
+	public static final int MAPWIDTH = 500;
+	public static final int MAPHEIGHT = 500;
+
+	// matches still running after this many steps count as draws
+	public static final long MAX_TICKS = 100000;
+
+	// matches each fork/join leaf plays before it stops splitting
+	private static final int BATCH = 8;
+
+	private final int matches;
+	private final long seed;
+	private final int width;
+	private final int height;
+	private final int minPlayers;
+	private final int maxPlayers;
+
+	/**
+	 * Creates a tournament of the given number of matches on the standard
+	 * court.
+	 *
+	 * @param matches the number of matches to play
+	 * @param seed the seed every match seed is derived from
+	 */
+	public Tournament(int matches, long seed) {
+		this(matches, seed, MAPWIDTH, MAPHEIGHT, MIN_PLAYERS, MAX_PLAYERS);
+	}
+
+	/**
+	 * Creates a tournament of the given number of matches on a court of any
+	 * size.
+	 *
+	 * @param matches the number of matches to play
+	 * @param seed the seed every match seed is derived from
+	 * @param width the court width in pixels
+	 * @param height the court height in pixels
+	 * @param minPlayers the fewest players in a match, at least 2
+	 * @param maxPlayers the most players in a match
+	 */
+	public Tournament(int matches, long seed, int width, int height,
+			int minPlayers, int maxPlayers) {
+		if (matches < 0) {
+			throw new IllegalArgumentException("matches must not be negative");
+		}
+		if (width <= 0 || height <= 0) {
+			throw new IllegalArgumentException("court must not be empty");
+		}
+		if (minPlayers < 2 || maxPlayers < minPlayers) {
+			throw new IllegalArgumentException("invalid player range");
+		}
+		this.matches = matches;
+		this.seed = seed;
+		this.width = width;
+		this.height = height;
+		this.minPlayers = minPlayers;
+		this.maxPlayers = maxPlayers;
+	}
+
+	/**
+	 * Plays every match on a pool of the given size.
+	 *
+	 * @param threads the parallelism of the pool
+	 * @return the aggregated statistics
+	 */
+	public TournamentStats run(int threads) {
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			return pool.invoke(new MatchRange(0, matches));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Plays a single match and records it.
+	 *
+	 * @param index the match number
+	 * @param stats the statistics to record the match in
+	 */
+	public void playMatch(int index, TournamentStats stats) {
+		Random r = new Random(matchSeed(seed, index));
+		int count = minPlayers + r.nextInt(maxPlayers - minPlayers + 1);
+		Simulation sim = new Simulation(width, height);
+		Player[] players = sim.start(r.nextLong(), 0, count);
+
+		long[] survived = new long[count];
+		while (sim.countAlive() > 1 && sim.getTick() < MAX_TICKS) {
+			sim.step();
+			for (int i = 0; i < count; i++) {
+				if (players[i].getAlive()) {
+					survived[i] = sim.getTick();
+				}
+			}
+		}
+		stats.addMatch(players, survived, sim.getTick(),
+				sim.countAlive() > 1);
+	}
+
+	// spreads consecutive match numbers over unrelated seeds (SplitMix64)
+	static long matchSeed(long seed, int index) {
+		long z = seed + (index + 1) * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	// a range of matches, split in halves until it is small enough to play
+	@SuppressWarnings("serial")
+	private class MatchRange extends RecursiveTask<TournamentStats> {
+		private final int from;
+		private final int to;
+
+		MatchRange(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected TournamentStats compute() {
+			if (to - from <= BATCH) {
+				TournamentStats stats = new TournamentStats(maxPlayers);
+				for (int i = from; i < to; i++) {
+					playMatch(i, stats);
+				}
+				return stats;
+			}
+			int mid = (from + to) >>> 1;
+			MatchRange left = new MatchRange(from, mid);
+			left.fork();
+			TournamentStats right = new MatchRange(mid, to).compute();
+			return left.join().add(right);
+		}
+	}
+
+	public static void main(String[] args) {
+		int matches = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : 1L;
+		int threads = args.length > 2 ? Integer.parseInt(args[2])
+				: Runtime.getRuntime().availableProcessors();
+		Tournament t = args.length > 6
+				? new Tournament(matches, seed, Integer.parseInt(args[3]),
+						Integer.parseInt(args[4]), Integer.parseInt(args[5]),
+						Integer.parseInt(args[6]))
+				: new Tournament(matches, seed);
+		long start = System.nanoTime();
+		TournamentStats stats = t.run(threads);
+		long millis = (System.nanoTime() - start) / 1000000;
+		System.out.print(stats.summary());
+		System.out.println("Played in " + millis + " ms on " + threads + " threads");
+	}
+}
@@ -0,0 +1,163 @@
+import java.util.Locale;
+
+/**
+ * Aggregated results of a batch of AI-vs-AI matches: wins by starting
+ * seat, match and survival lengths in steps, and what ended each run.
+ * Counts are plain sums, so partial results from different threads can be
+ * added together in any order and give the same totals.
+ */
+public class TournamentStats {
+
+	private final int seats;
+
+	private long matches = 0;
+	private long draws = 0;
+	private long timeouts = 0;
+	private final long[] seatPlayed;
+	private final long[] seatWins;
+
+	private long matchTicks = 0;
+	private long longestMatch = 0;
+	private long runs = 0;
+	private long survivalTicks = 0;
+	private final long[] causes = new long[CrashCause.values().length];
+
+	/**
+	 * Creates empty statistics for matches of up to the given size.
+	 *
+	 * @param seats the largest number of players in a match
+	 */
+	public TournamentStats(int seats) {
+		this.seats = seats;
+		this.seatPlayed = new long[seats];
+		this.seatWins = new long[seats];
+	}
+
+	/**
+	 * Records one finished match.
+	 *
+	 * @param players the players in spawn order
+	 * @param survived the steps each player survived
+	 * @param ticks the length of the match in steps
+	 * @param timedOut true if the match was stopped at the step limit
+	 */
+	public void addMatch(Player[] players, long[] survived, long ticks,
+			boolean timedOut) {
+		matches++;
+		matchTicks += ticks;
+		longestMatch = Math.max(longestMatch, ticks);
+		int winner = -1;
+		for (int i = 0; i < players.length; i++) {
+			seatPlayed[i]++;
+			runs++;
+			survivalTicks += survived[i];
+			if (players[i].getAlive()) {
+				winner = (winner == -1 && !timedOut) ? i : -2;
+			} else if (players[i].getCause() != null) {
+				causes[players[i].getCause().ordinal()]++;
+			}
+		}
+		if (timedOut) {
+			timeouts++;
+		}
+		if (winner >= 0) {
+			seatWins[winner]++;
+		} else {
+			draws++;
+		}
+	}
+
+	/**
+	 * Adds another set of statistics into this one.
+	 *
+	 * @param other the statistics to add
+	 * @return this object
+	 */
+	public TournamentStats add(TournamentStats other) {
+		matches += other.matches;
+		draws += other.draws;
+		timeouts += other.timeouts;
+		for (int i = 0; i < seats; i++) {
+			seatPlayed[i] += other.seatPlayed[i];
+			seatWins[i] += other.seatWins[i];
+		}
+		matchTicks += other.matchTicks;
+		longestMatch = Math.max(longestMatch, other.longestMatch);
+		runs += other.runs;
+		survivalTicks += other.survivalTicks;
+		for (int i = 0; i < causes.length; i++) {
+			causes[i] += other.causes[i];
+		}
+		return this;
+	}
+
+	/**
+	 * Returns the number of matches recorded.
+	 *
+	 * @return the match count
+	 */
+	public long getMatches() {
+		return matches;
+	}
+
+	/**
+	 * Returns the number of matches without a single winner.
+	 *
+	 * @return the draw count
+	 */
+	public long getDraws() {
+		return draws;
+	}
+
+	/**
+	 * Returns how many runs ended with the given cause.
+	 *
+	 * @param c the crash cause
+	 * @return the number of runs
+	 */
+	public long getCauseCount(CrashCause c) {
+		return causes[c.ordinal()];
+	}
+
+	/**
+	 * Formats the statistics as a plain-text report.
+	 *
+	 * @return the summary report
+	 */
+	public String summary() {
+		StringBuilder sb = new StringBuilder();
+		String nl = System.lineSeparator();
+		sb.append(String.format(Locale.ROOT, "Matches: %d  Draws: %d (%.1f%%)  Timeouts: %d",
+				matches, draws, percent(draws, matches), timeouts)).append(nl);
+		sb.append(String.format(Locale.ROOT, "Match length: avg %.1f steps, max %d steps",
+				ratio(matchTicks, matches), longestMatch)).append(nl);
+		sb.append(String.format(Locale.ROOT, "Survival: avg %.1f steps over %d runs",
+				ratio(survivalTicks, runs), runs)).append(nl);
+		sb.append("Win rate by seat:").append(nl);
+		for (int i = 0; i < seats; i++) {
+			if (seatPlayed[i] > 0) {
+				sb.append(String.format(Locale.ROOT, "  seat %d: %d/%d (%.1f%%)",
+						i + 1, seatWins[i], seatPlayed[i],
+						percent(seatWins[i], seatPlayed[i]))).append(nl);
+			}
+		}
+		sb.append("Crash causes:").append(nl);
+		long crashes = 0;
+		for (long c : causes) {
+			crashes += c;
+		}
+		for (CrashCause c : CrashCause.values()) {
+			sb.append(String.format(Locale.ROOT, "  %s: %d (%.1f%%)", c,
+					causes[c.ordinal()], percent(causes[c.ordinal()], crashes))).append(nl);
+		}
+		return sb.toString();
+	}
+
+	private static double ratio(long a, long b) {
+		return b == 0 ? 0 : (double) a / b;
+	}
+
+	private static double percent(long a, long b) {
+		return 100 * ratio(a, b);
+	}
+}
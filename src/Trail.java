@@ -0,0 +1,235 @@
+import java.util.Arrays;
+
+/**
+ * A player's path stored as packed polyline vertices.
+ * <p>
+ * Vertices live in a single growable {@code int[]} as x/y pairs (8 bytes
+ * each). Segment {@code i} runs from vertex {@code i} to vertex {@code i + 1}.
+ * Extending the path in a straight line moves the tail vertex in place, so
+ * the per-tick hot path allocates nothing; a turn appends one vertex and a
+ * jump appends a gap marker followed by the landing point. Segments that
+ * touch a gap marker are not part of the path and report
+ * {@link #isGap(int)}.
+ * <p>
+ * Only the tail vertex is ever changed in place, and it is kept out of the
+ * array, so every vertex in the array is final once written. That lets
+ * {@link #copy()} share the array with the original in O(1): a trail
+ * appends in place only while it is the furthest-grown user of the array
+ * and copies the array the first time it diverges from another.
+ */
+public class Trail {
+
+	// marks a break in the path left by a jump
+	private static final int GAP = Integer.MIN_VALUE;
+
+	// vertex storage that may be shared by several trails
+	private static final class Buffer {
+		int[] xy;
+		// vertices written so far by the trail furthest ahead
+		int used;
+
+		Buffer(int[] xy, int used) {
+			this.xy = xy;
+			this.used = used;
+		}
+	}
+
+	private Buffer buf;
+	// vertices of this trail stored in the buffer
+	private int committed = 0;
+	// the last vertex, moved in place while the path runs straight
+	private boolean hasTail = false;
+	private int tailX;
+	private int tailY;
+
+	/**
+	 * Creates an empty trail.
+	 */
+	public Trail() {
+		this(new Buffer(new int[32], 0));
+	}
+
+	// creates an empty trail over existing storage, for copy()
+	private Trail(Buffer buf) {
+		this.buf = buf;
+	}
+
+	/**
+	 * Adds the segment from (x1, y1) to (x2, y2) to the end of the path.
+	 * A segment that continues the tail in the same direction extends it in
+	 * place; zero-length segments are ignored.
+	 *
+	 * @param x1 the starting X coordinate
+	 * @param y1 the starting Y coordinate
+	 * @param x2 the ending X coordinate
+	 * @param y2 the ending Y coordinate
+	 */
+	public void extend(int x1, int y1, int x2, int y2) {
+		if (x1 == x2 && y1 == y2) {
+			return;
+		}
+		if (hasTail && tailX == x1 && tailY == y1) {
+			if (committed > 0 && buf.xy[2 * committed - 2] != GAP) {
+				int px = buf.xy[2 * committed - 2];
+				int py = buf.xy[2 * committed - 1];
+				if ((px == x1 && x1 == x2
+						&& Integer.signum(y1 - py) == Integer.signum(y2 - y1))
+						|| (py == y1 && y1 == y2
+						&& Integer.signum(x1 - px) == Integer.signum(x2 - x1))) {
+					tailX = x2;
+					tailY = y2;
+					return;
+				}
+			}
+			append(x2, y2);
+			return;
+		}
+		if (hasTail) {
+			append(GAP, GAP);
+		}
+		append(x1, y1);
+		append(x2, y2);
+	}
+
+	/**
+	 * Removes every segment from the path.
+	 */
+	public void clear() {
+		committed = 0;
+		hasTail = false;
+	}
+
+	/**
+	 * Returns a copy of this trail in O(1). The copy shares storage with
+	 * this trail; either can be extended independently afterwards.
+	 *
+	 * @return the copy
+	 */
+	public Trail copy() {
+		Trail t = new Trail(buf);
+		t.restore(this);
+		return t;
+	}
+
+	/**
+	 * Makes this trail equal to another in O(1), sharing its storage.
+	 *
+	 * @param other the trail to copy
+	 */
+	public void restore(Trail other) {
+		buf = other.buf;
+		committed = other.committed;
+		hasTail = other.hasTail;
+		tailX = other.tailX;
+		tailY = other.tailY;
+	}
+
+	/**
+	 * Returns the number of segment slots, including gaps.
+	 *
+	 * @return the number of segments
+	 */
+	public int size() {
+		return hasTail ? committed : 0;
+	}
+
+	/**
+	 * Checks whether a segment slot is a break left by a jump.
+	 *
+	 * @param i the segment index
+	 * @return true if the slot is not part of the drawn path
+	 */
+	public boolean isGap(int i) {
+		return getStartX(i) == GAP || getEndX(i) == GAP;
+	}
+
+	/**
+	 * Checks if a segment is vertical.
+	 *
+	 * @param i the segment index
+	 * @return true if the segment is vertical
+	 */
+	public boolean isVertical(int i) {
+		return getStartX(i) == getEndX(i);
+	}
+
+	/**
+	 * Returns the starting X position of a segment.
+	 *
+	 * @param i the segment index
+	 * @return the starting X coordinate
+	 */
+	public int getStartX(int i) {
+		return buf.xy[2 * i];
+	}
+
+	/**
+	 * Returns the starting Y position of a segment.
+	 *
+	 * @param i the segment index
+	 * @return the starting Y coordinate
+	 */
+	public int getStartY(int i) {
+		return buf.xy[2 * i + 1];
+	}
+
+	/**
+	 * Returns the ending X position of a segment.
+	 *
+	 * @param i the segment index
+	 * @return the ending X coordinate
+	 */
+	public int getEndX(int i) {
+		return (i + 1 < committed) ? buf.xy[2 * i + 2] : tailX;
+	}
+
+	/**
+	 * Returns the ending Y position of a segment.
+	 *
+	 * @param i the segment index
+	 * @return the ending Y coordinate
+	 */
+	public int getEndY(int i) {
+		return (i + 1 < committed) ? buf.xy[2 * i + 3] : tailY;
+	}
+
+	/**
+	 * Returns a segment as an immutable {@link Shape}. This allocates and is
+	 * meant for code outside the per-tick paths.
+	 *
+	 * @param i the segment index
+	 * @return the segment, or null if the slot is a gap
+	 */
+	public Shape get(int i) {
+		if (isGap(i)) {
+			return null;
+		}
+		return new Line(getStartX(i), getStartY(i), getEndX(i), getEndY(i));
+	}
+
+	// makes (x, y) the new tail, storing the old tail in the buffer
+	private void append(int x, int y) {
+		if (hasTail) {
+			store(tailX, tailY);
+		}
+		tailX = x;
+		tailY = y;
+		hasTail = true;
+	}
+
+	// writes a vertex after the committed ones, copying the buffer if it is
+	// full or another trail has already written past this one
+	private void store(int x, int y) {
+		if (committed != buf.used || 2 * committed + 2 > buf.xy.length) {
+			int capacity = Math.max(32, buf.xy.length);
+			if (2 * committed + 2 > capacity) {
+				capacity *= 2;
+			}
+			buf = new Buffer(Arrays.copyOf(buf.xy, capacity), committed);
+		}
+		buf.xy[2 * committed] = x;
+		buf.xy[2 * committed + 1] = y;
+		committed++;
+		buf.used = committed;
+	}
+}
@@ -0,0 +1,151 @@
+import java.util.Arrays;
+
+/**
+ * Arena-level collision index shared by every player on the court.
+ * <p>
+ * Trails are held once, in an {@link OccupancyGrid} the players stamp into
+ * as they move. Heads are bucketed into a coarse grid each tick so that a
+ * head-on check only looks at players in neighbouring buckets. Every
+ * player is queried a single time per tick, so crash resolution scales with
+ * the number of players instead of the number of player pairs.
+ */
+public class TrailIndex {
+
+	// bucket size in pixels; at least the distance two heads can touch from
+	private static final int CELL = 8;
+
+	private final OccupancyGrid grid;
+	private final int cols;
+	private final int rows;
+
+	// first player in each bucket (index + 1, 0 when empty)
+	private final int[] buckets;
+	// next player in the same bucket (index + 1, 0 at the end)
+	private int[] next = new int[8];
+
+	/**
+	 * Creates an empty index for a court of the given size.
+	 *
+	 * @param width the court width in pixels
+	 * @param height the court height in pixels
+	 */
+	public TrailIndex(int width, int height) {
+		this.grid = new OccupancyGrid(width, height);
+		this.cols = (width + CELL - 1) / CELL;
+		this.rows = (height + CELL - 1) / CELL;
+		this.buckets = new int[cols * rows];
+	}
+
+	/**
+	 * Returns the grid that players stamp their trails into.
+	 *
+	 * @return the shared occupancy grid
+	 */
+	public OccupancyGrid getGrid() {
+		return grid;
+	}
+
+	/**
+	 * Removes every trail from the index.
+	 */
+	public void clear() {
+		grid.clear();
+	}
+
+	/**
+	 * Checks every living player against all trails and all other heads and
+	 * crashes those that hit something. Null entries are skipped.
+	 *
+	 * @param players the players on the court
+	 */
+	public void resolveCrashes(Player[] players) {
+		indexHeads(players);
+		for (int i = 0; i < players.length; i++) {
+			if (players[i] != null && players[i].getAlive()) {
+				CrashCause c = query(players, i);
+				if (c != null) {
+					players[i].crash(Intersection.UP, c);
+				}
+			}
+		}
+		clearHeads(players);
+	}
+
+	// looks up one player against the trails and the bucketed heads
+	private CrashCause query(Player[] players, int i) {
+		Player p = players[i];
+		if (p.intersectsTrail() == Intersection.UP) {
+			return hitsOwnTrail(p) ? CrashCause.SELF : CrashCause.TRAIL;
+		}
+		int cx = column(p.x);
+		int cy = row(p.y);
+		for (int by = Math.max(0, cy - 1); by <= Math.min(rows - 1, cy + 1); by++) {
+			for (int bx = Math.max(0, cx - 1); bx <= Math.min(cols - 1, cx + 1); bx++) {
+				for (int j = buckets[by * cols + bx]; j != 0; j = next[j - 1]) {
+					if (p.intersects(players[j - 1]) == Intersection.UP) {
+						return CrashCause.HEAD_ON;
+					}
+				}
+			}
+		}
+		return null;
+	}
+
+	// scans a crashed player's own path, leaving out the run it is on;
+	// only done once per crash to tell self-crashes from the rest
+	private boolean hitsOwnTrail(Player p) {
+		Trail t = p.getPath();
+		for (int k = 0; k < t.size() - 1; k++) {
+			if (t.isGap(k)) {
+				continue;
+			}
+			int x1 = t.getStartX(k);
+			int y1 = t.getStartY(k);
+			int x2 = t.getEndX(k);
+			int y2 = t.getEndY(k);
+			if (y1 == y2) {
+				if (Math.abs(y1 - p.y) <= p.height/2 &&
+					p.x >= Math.min(x1, x2) && p.x <= Math.max(x1, x2)) {
+					return true;
+				}
+			} else if (Math.abs(x1 - p.x) <= p.width/2 &&
+					p.y >= Math.min(y1, y2) && p.y <= Math.max(y1, y2)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// links each head into the bucket it currently sits in
+	private void indexHeads(Player[] players) {
+		if (next.length < players.length) {
+			next = new int[players.length];
+		}
+		for (int i = 0; i < players.length; i++) {
+			Player p = players[i];
+			if (p != null) {
+				int b = row(p.y) * cols + column(p.x);
+				next[i] = buckets[b];
+				buckets[b] = i + 1;
+			}
+		}
+	}
+
+	// empties only the buckets used this tick
+	private void clearHeads(Player[] players) {
+		for (Player p: players) {
+			if (p != null) {
+				buckets[row(p.y) * cols + column(p.x)] = 0;
+			}
+		}
+		Arrays.fill(next, 0, players.length, 0);
+	}
+
+	private int column(int x) {
+		return Math.max(0, Math.min(cols - 1, x / CELL));
+	}
+
+	private int row(int y) {
+		return Math.max(0, Math.min(rows - 1, y / CELL));
+	}
+}
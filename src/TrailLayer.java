@@ -0,0 +1,227 @@
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * Persistent off-screen image of every trail on the court.
+ * <p>
+ * Each paint first draws only what the trails gained since the previous
+ * frame into the layer, then blits the layer, so the cost of a frame
+ * depends on how far players moved, not on how long their trails are. Per
+ * player the layer remembers the first segment that may still grow and how
+ * far along it has been drawn; every earlier segment of a {@link Trail} is
+ * final.
+ * <p>
+ * The layer can follow the live players on the thread that steps them, or
+ * the {@link Frame}s published to a render thread. A new match starts the
+ * layer over, and {@link #invalidate()} forces a full redraw, e.g. after a
+ * snapshot has been restored.
+ */
+public class TrailLayer {
+
+	private final int width;
+	private final int height;
+	private final Color background;
+
+	private BufferedImage image;
+	private Graphics2D ig;
+
+	// the match drawn so far: its players array, or the frames' match token
+	private Object match;
+	// per player: first segment not drawn to its end yet
+	private int[] drawn = new int[0];
+	// per player: point that segment has been drawn up to
+	private int[] fromX = new int[0];
+	private int[] fromY = new int[0];
+
+	/**
+	 * Creates an empty layer for a court of the given size.
+	 *
+	 * @param width the court width in pixels
+	 * @param height the court height in pixels
+	 * @param background the court color under the trails
+	 */
+	public TrailLayer(int width, int height, Color background) {
+		if (width <= 0 || height <= 0) {
+			throw new IllegalArgumentException("layer dimensions must be positive");
+		}
+		this.width = width;
+		this.height = height;
+		this.background = background;
+	}
+
+	/**
+	 * Brings the layer up to date with the players' trails and draws it.
+	 *
+	 * @param g the graphics context to draw into
+	 * @param players the players on the court; null entries are skipped
+	 * @param gc the configuration to create the layer for, or null
+	 */
+	public void paint(Graphics g, Player[] players, GraphicsConfiguration gc) {
+		prepare(gc);
+		if (players != this.match || rewound(players)) {
+			start(players, players.length);
+		}
+		for (int i = 0; i < players.length; i++) {
+			if (players[i] != null) {
+				update(i, players[i].getPath(), players[i].color, Integer.MIN_VALUE, 0);
+			}
+		}
+		g.drawImage(image, 0, 0, null);
+	}
+
+	/**
+	 * Brings the layer up to date with a published frame and draws it.
+	 * Frames may be skipped; the trails they carry are complete.
+	 *
+	 * @param g the graphics context to draw into
+	 * @param frame the frame to draw
+	 * @param gc the configuration to create the layer for, or null
+	 */
+	public void paint(Graphics g, Frame frame, GraphicsConfiguration gc) {
+		paint(g, frame, 1, gc);
+	}
+
+	/**
+	 * Brings the layer up to date with a published frame part of the way
+	 * through its step and draws it. The newest segment of each trail is
+	 * drawn only up to where {@link Frame#getX(int, double)} and
+	 * {@link Frame#getY(int, double)} place the head, so the trail never
+	 * runs ahead of an interpolated head; the rest of it is drawn by a later
+	 * frame.
+	 *
+	 * @param g the graphics context to draw into
+	 * @param frame the frame to draw
+	 * @param fraction how far through the frame's step to draw, 0 to 1
+	 * @param gc the configuration to create the layer for, or null
+	 */
+	public void paint(Graphics g, Frame frame, double fraction, GraphicsConfiguration gc) {
+		if (!(fraction >= 0 && fraction <= 1)) {
+			throw new IllegalArgumentException("fraction must be between 0 and 1");
+		}
+		prepare(gc);
+		if (frame.getMatch() != this.match || rewound(frame)) {
+			start(frame.getMatch(), frame.size());
+		}
+		for (int i = 0; i < frame.size(); i++) {
+			if (frame.getColor(i) != null) {
+				update(i, frame.getTrail(i), frame.getColor(i),
+						frame.getX(i, fraction), frame.getY(i, fraction));
+			}
+		}
+		g.drawImage(image, 0, 0, null);
+	}
+
+	// creates the off-screen image on first use
+	private void prepare(GraphicsConfiguration gc) {
+		if (image == null) {
+			image = (gc != null) ? gc.createCompatibleImage(width, height)
+					: new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+			ig = image.createGraphics();
+			this.match = null;
+		}
+	}
+
+	/**
+	 * Makes the next frame redraw every trail from scratch.
+	 */
+	public void invalidate() {
+		match = null;
+	}
+
+	/**
+	 * Releases the off-screen image; the next frame creates it again.
+	 */
+	public void dispose() {
+		if (ig != null) {
+			ig.dispose();
+		}
+		ig = null;
+		image = null;
+		match = null;
+	}
+
+	// clears the layer for a new match
+	private void start(Object match, int count) {
+		this.match = match;
+		ig.setColor(background);
+		ig.fillRect(0, 0, width, height);
+		if (drawn.length < count) {
+			drawn = new int[count];
+			fromX = new int[count];
+			fromY = new int[count];
+		}
+		Arrays.fill(drawn, 0);
+		Arrays.fill(fromX, Integer.MIN_VALUE);
+	}
+
+	// checks whether a trail got shorter than what was drawn of it
+	private boolean rewound(Player[] players) {
+		for (int i = 0; i < players.length; i++) {
+			if (players[i] != null && players[i].getPath().size() < drawn[i]) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean rewound(Frame frame) {
+		for (int i = 0; i < frame.size(); i++) {
+			if (frame.getTrail(i).size() < drawn[i]) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// draws the part of a trail added since the last frame; the last
+	// segment stops at (clipX, clipY) if that point lies on it
+	private void update(int i, Trail t, Color color, int clipX, int clipY) {
+		int n = t.size();
+		ig.setColor(color);
+		for (int s = drawn[i]; s < n; s++) {
+			if (t.isGap(s)) {
+				fromX[i] = Integer.MIN_VALUE;
+				continue;
+			}
+			int x1 = t.getStartX(s);
+			int y1 = t.getStartY(s);
+			if (fromX[i] != Integer.MIN_VALUE) {
+				x1 = fromX[i];
+				y1 = fromY[i];
+			}
+			int x2 = t.getEndX(s);
+			int y2 = t.getEndY(s);
+			if (s == n - 1 && onSegment(t, s, clipX, clipY)) {
+				x2 = clipX;
+				y2 = clipY;
+			}
+			ig.drawLine(x1, y1, x2, y2);
+			if (s < n - 1) {
+				fromX[i] = Integer.MIN_VALUE;
+			} else {
+				// the last segment may keep growing; resume from its end
+				drawn[i] = s;
+				fromX[i] = x2;
+				fromY[i] = y2;
+				return;
+			}
+		}
+		drawn[i] = n;
+	}
+
+	// checks whether a point lies on an axis-aligned segment of a trail
+	private static boolean onSegment(Trail t, int s, int x, int y) {
+		int x1 = t.getStartX(s);
+		int y1 = t.getStartY(s);
+		int x2 = t.getEndX(s);
+		int y2 = t.getEndY(s);
+		if (x1 == x2) {
+			return x == x1 && y >= Math.min(y1, y2) && y <= Math.max(y1, y2);
+		}
+		return y == y1 && x >= Math.min(x1, x2) && x <= Math.max(x1, x2);
+	}
+}
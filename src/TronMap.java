@@ -2,6 +2,10 @@
 
 import java.awt.*;
 import java.awt.event.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Random;
 
 import javax.swing.*;
@@ -9,70 +13,104 @@ import javax.swing.*;
 @SuppressWarnings("serial")
 public abstract class TronMap extends JComponent {
 	
-	// the player and all other players
+	// the player controlled from the keyboard
 	PlayerHuman player;
-	Player[] players;
-	Color[] colors = {Color.CYAN, Color.PINK, Color.WHITE, Color.YELLOW,
-					  Color.BLUE, Color.ORANGE, Color.RED, Color.GREEN};
-	
-	Random rand = new Random();
 	
 	// court dimensions
 	int MAPWIDTH = 500;
 	int MAPHEIGHT = 500;	
 	
-	// initial velocity
-	int VELOCITY = 3;
+	// the match being shown; owns the players, their moves and crashes
+	Simulation sim;
+	
+	// source of the seed each match is started from
+	Random seeds = new Random();
+	
+	// directory finished matches are saved to as replays, if set
+	static final String REPLAY_DIR = System.getProperty("tron.replays");
+	
+	// draws the court from a render loop instead of Swing painting, if set
+	static final boolean ACTIVE_RENDERING = Boolean.getBoolean("tron.active");
+	
+	// the surface the render loop draws on in active rendering mode
+	ActiveCourt court;
+	
+	// frames the simulation hands to the render loop in active mode
+	FrameExchange frames;
 	
 	// score and score labels
 	int i = 0;
 	JLabel score1;
 	JLabel score2;
 	
+	// trails drawn so far, so a frame only adds what is new
+	TrailLayer trailLayer;
+	
+	// court area changed by the last step; a negative size means none
+	final Rectangle dirty = new Rectangle(0, 0, -1, -1);
+	
 	// the game timer and speed at which tick() is called
-	int interval = 20;
+	int interval = Simulation.TICK_MILLIS;
 	Timer timer;
-	boolean run = true;
+	// set on the event thread, read by the render loop in active mode
+	volatile boolean run = true;
 	
-	// constructor adds KeyListeners and initializes fields
+	// set once dispose() has released the level
+	boolean disposed = false;
+	
+	// constructor for the standard 500x500 court
 	public TronMap(JLabel sco1, JLabel sco2, int p) {
+		this(sco1, sco2, p, 500, 500);
+	}
+	
+	// constructor adds KeyListeners and initializes fields
+	public TronMap(JLabel sco1, JLabel sco2, int p, int width, int height) {
 		setBackground(Color.WHITE);
-		if (p > 8) { p = 8; }
-		this.players = new Player[p];
+		if (p < 1 || width <= 0 || height <= 0) {
+			throw new IllegalArgumentException("invalid court setup");
+		}
+		this.MAPWIDTH = width;
+		this.MAPHEIGHT = height;
+		this.sim = new Simulation(width, height);
+		this.trailLayer = new TrailLayer(width, height, Color.BLACK);
 		this.score1 = sco1;
 		this.score2 = sco2;
 		
 		setBorder(BorderFactory.createLineBorder(Color.BLACK));
 		setFocusable(true);
+		if (REPLAY_DIR != null) {
+			sim.setRecorder(new ReplayRecorder());
+		}
+		if (ACTIVE_RENDERING) {
+			setLayout(new BorderLayout());
+			frames = new FrameExchange();
+			sim.setFrameExchange(frames);
+			court = new ActiveCourt(this);
+			add(court, BorderLayout.CENTER);
+		}
 		
-		// timer that runs the game
+		// timer that runs the game; started by activate()
 		timer = new Timer(interval, new ActionListener() {
 			public void actionPerformed(ActionEvent e) { 
 				tick();
 			}
 		});
-		timer.start();
 		
 		// player one controls
 		addKeyListener(new KeyAdapter() {
 			public void keyPressed(KeyEvent e) {
-				if (!player.getAlive()) {
-				} else if (e.getKeyCode() == KeyEvent.VK_LEFT) {
-					player.setXVelocity(-VELOCITY);
-					player.setYVelocity(0);
+				if (e.getKeyCode() == KeyEvent.VK_LEFT) {
+					sim.turn(player, Direction.LEFT);
 				} else if (e.getKeyCode() == KeyEvent.VK_RIGHT) {
-					player.setXVelocity(VELOCITY);
-					player.setYVelocity(0);
+					sim.turn(player, Direction.RIGHT);
 				} else if (e.getKeyCode() == KeyEvent.VK_UP) {
-					player.setYVelocity(-VELOCITY);
-					player.setXVelocity(0);
+					sim.turn(player, Direction.UP);
 				} else if (e.getKeyCode() == KeyEvent.VK_DOWN) {
-					player.setYVelocity(VELOCITY);
-					player.setXVelocity(0);
+					sim.turn(player, Direction.DOWN);
 				} else if (e.getKeyCode() == KeyEvent.VK_SPACE) {
-					player.jump();
+					sim.jump(player);
 				} else if (e.getKeyCode() == KeyEvent.VK_B) {
-					player.startBoost();
+					sim.boost(player);
 				}
 			}
 			public void keyReleased(KeyEvent e) {
@@ -80,38 +118,86 @@ public abstract class TronMap extends JComponent {
 		});
 	}
 	
-	// returns an array of velocities and dimensions for a Player
-	// ensures that the Player moves toward the center initially
-	public int[] getRandomStart() {
-		int[] start = new int[4];
-		int xnew = 50 + rand.nextInt(400);
-		int ynew = 50 + rand.nextInt(400);
-		int ra = rand.nextInt(2);
-		int velx = 0;
-		int vely = 0;
-		if (ra == 0) {
-			if (xnew < 250) {
-				velx = VELOCITY;
-			} else {
-				velx = -VELOCITY;
-			}
-		} else {
-			if (ynew < 250) {
-				vely = VELOCITY;
-			} else {
-				vely = -VELOCITY;
+	// makes this the level on screen and starts a fresh game on it
+	public void activate() {
+		if (disposed) {
+			throw new IllegalStateException("level has been disposed");
+		}
+		reset();
+	}
+	
+	// stops the level from ticking while it is off screen; the match
+	// stays as it is until the level is activated again
+	public void suspend() {
+		timer.stop();
+	}
+	
+	// releases the level's timer, recorder, frames and off-screen images;
+	// the level cannot be activated again
+	public void dispose() {
+		disposed = true;
+		timer.stop();
+		sim.setRecorder(null);
+		if (court != null) {
+			remove(court);
+			sim.setFrameExchange(null);
+			court = null;
+		}
+		trailLayer.dispose();
+	}
+	
+	// starts a new match with a fresh seed and returns its players; the
+	// whole court is repainted since every trail and overlay goes away
+	Player[] startMatch(int humans, int ais) {
+		Player[] players = sim.start(seeds.nextLong(), humans, ais);
+		repaint();
+		return players;
+	}
+	
+	// stops the game timer and saves the replay of the finished match
+	void finishMatch() {
+		timer.stop();
+		byte[] replay = sim.finishRecording();
+		if (replay != null) {
+			Path file = Paths.get(REPLAY_DIR, getClass().getSimpleName() + "-"
+					+ System.currentTimeMillis() + ".trr");
+			try {
+				Files.createDirectories(file.getParent());
+				Files.write(file, replay);
+			} catch (IOException e) {
+				System.err.println("Failed to save replay: " + file + " (" + e + ")");
 			}
 		}
-		start[0] = xnew;
-		start[1] = ynew;
-		start[2] = velx;
-		start[3] = vely;
-		return start;
 	}
 	
 	// returns the velocity
 	public int getVelocity() {
-		return VELOCITY;
+		return sim.getVelocity();
+	}
+	
+	// returns the players on the court
+	public Player[] getPlayers() {
+		return sim.getPlayers();
+	}
+	
+	// advances the simulation by one step within the current court size
+	// and collects the area the players' moves changed
+	void step() {
+		sim.setBounds(getWidth(), getHeight());
+		sim.step();
+		dirty.setBounds(0, 0, -1, -1);
+		for (Player p: sim.getPlayers()) {
+			if (p != null) {
+				p.addMoved(dirty);
+			}
+		}
+	}
+	
+	// repaints only the part of the court the last step changed
+	void repaintDirty() {
+		if (court == null && dirty.width > 0 && dirty.height > 0) {
+			repaint(dirty.x, dirty.y, dirty.width, dirty.height);
+		}
 	}
 	
 	// moves the game by one timestamp
@@ -126,16 +212,49 @@ public abstract class TronMap extends JComponent {
 	// adds scores to high scores or sets the score after a level
 	abstract void addScore();
 
-	// draws the Player objects
+	// draws the trail layer, the Player objects on top of it and then the
+	// level's overlay, on the thread that steps the simulation
+	void render(Graphics g) {
+		Player[] players = sim.getPlayers();
+		trailLayer.paint(g, players, getGraphicsConfiguration());
+		for (Player p: players) {
+			if (p != null) {
+				p.drawHead(g);
+			}
+		}
+		paintOverlay(g);
+	}
+	
+	// draws the newest frame the simulation published, from the render
+	// loop; heads are placed as far through their last move as the time
+	// since that step is through the step interval, and each trail is
+	// drawn only up to its head
+	void renderFrame(Graphics g) {
+		Frame f = frames.latest();
+		double fraction = (System.nanoTime() - f.getTime()) / (interval * 1e6);
+		fraction = Math.max(0, Math.min(1, fraction));
+		trailLayer.paint(g, f, fraction, getGraphicsConfiguration());
+		for (int i = 0; i < f.size(); i++) {
+			if (f.getColor(i) != null) {
+				g.setColor(f.getColor(i));
+				g.fillRect(f.getX(i, fraction) - Player.WIDTH/2,
+						f.getY(i, fraction) - Player.HEIGHT/2,
+						Player.WIDTH, Player.HEIGHT);
+			}
+		}
+		paintOverlay(g);
+	}
+	
+	// draws the level's messages over the court
+	void paintOverlay(Graphics g) {
+	}
+	
+	// draws the court, unless a render loop does it in active mode
    @Override
 	public void paintComponent(Graphics g) {
 	   super.paintComponent(g);
-	   g.setColor(Color.BLACK);
-	   g.fillRect(0, 0, MAPWIDTH, MAPHEIGHT);
-	   for (Player p: players) {
-		   if (p != null) {
-			   p.draw(g);
-		   }
+	   if (court == null) {
+		   render(g);
 	   }
 	}
    
@@ -2,24 +2,27 @@
 
 
 import java.awt.Graphics;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
-import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.IOException;
 
-import javax.imageio.ImageIO;
 import javax.swing.*;
 
 @SuppressWarnings("serial")
 public class TronMapStory extends TronMap {
 	
-	// timer that controls the time between levels
-	Timer time;
+	// steps between winning a level and the start of the next one
+	static final int LEVELDELAY = 1000 / Simulation.TICK_MILLIS;
 	
-	// used for drawing images based on results
-	boolean win = false;
-	boolean over = false;
+	// starts the next level once the delay has run out on the
+	// simulation's timers
+	private final Runnable levelStart = new Runnable() {
+		public void run() {
+			nextLevel();
+		}
+	};
+	
+	// used for drawing images based on results; set on the event thread
+	// and read by the render loop, so volatile
+	volatile boolean win = false;
+	volatile boolean over = false;
 	
 	// constructor calls super
 	public TronMapStory(JLabel sco1, JLabel sco2, int p) {
@@ -30,32 +33,22 @@ public class TronMapStory extends TronMap {
 	// moves Player objects, checks for intersections, and checks 
 	// which Player objects are still alive
 	void tick() {
-		for (Player k: players) {
-			if (k != null) {
-				k.setBounds(getWidth(), getHeight());
-				k.move();
-			}
-		}
-		for (Player k1: players) {
-			for (Player k2: players) {
-				k1.crash(k1.intersects(k2));
-			}
+		if (win) {
+			// the court stays frozen while the timers count down to the
+			// next level
+			sim.idle();
+			return;
 		}
+		step();
 		if (!player.getAlive()) {
-			timer.stop();
+			finishMatch();
 			run = false;
 			addScore();
 			setScore();
 		} else {
-			int check = 0;
-			for (Player k: players) {
-				if (!k.getAlive()) {
-					check++;
-				}
-			}
-			if (check == players.length - 1) {
+			if (sim.countAlive() == 1) {
 				run = false;
-				timer.stop();
+				finishMatch();
 				addScore();
 				setScore();
 			} else {
@@ -63,27 +56,30 @@ public class TronMapStory extends TronMap {
 				setScore();
 			}
 		}
-		repaint();
+		if (run) {
+			repaintDirty();
+		} else {
+			repaint();
+		}
 	}
 	
 	// sets the score that is being displayed as the game moves on.
 	public void setScore() {
 		score1.setText("     Score: " + i + 
-				"    Level: " + (players.length - 1));
+				"    Level: " + (getPlayers().length - 1));
 		score2.setText("             Boost: " + player.getBoostsLeft());
 		score1.repaint();
 	}	
 	
-	// starts the next level after a win after the timer expires
+	// starts the next level after a win once the level delay is over
 	public void nextLevel() {
-		time.stop();
 		win = false;
-		if (players.length != 8) {
-			players = new Player[players.length + 1];
-			addPlayers();
+		if (getPlayers().length != 8) {
+			addPlayers(getPlayers().length + 1);
 			timer.start();
 			requestFocusInWindow();
 		} else {
+			timer.stop();
 			win = true;
 			over = true;
 			repaint();
@@ -91,19 +87,8 @@ public class TronMapStory extends TronMap {
 	}
 	
 	// adds Player objects to the court for each new level
-	public void addPlayers() {
-		int[] start = getRandomStart();
-		player = new PlayerHuman(
-				start[0], start[1], start[2], start[3], colors[0]);
-		players[0] = player;
-		for (int j = 1; j < players.length; j++) {
-			start = getRandomStart();
-			players[j] = new PlayerAI(start[0], start[1], 
-					start[2], start[3], colors[j]);
-		}
-		for (Player p: players) {
-			p.addPlayers(players);
-		}
+	public void addPlayers(int count) {
+		player = (PlayerHuman) startMatch(1, count - 1)[0];
 	}
 	
 	// initializes all Player objects and restarts the story mode
@@ -111,8 +96,7 @@ public class TronMapStory extends TronMap {
 		i = 0;
 		over = false;
 		win = false;
-		players = new Player[2];
-		addPlayers();
+		addPlayers(2);
 		timer.start();
 		requestFocusInWindow();
 	}
@@ -120,14 +104,11 @@ public class TronMapStory extends TronMap {
 	// updates the player's score after successfully completing a level
 	public void addScore() {
 		if (player.getAlive()) {
-			i += 50 * (players.length - 1);
+			i += 50 * (getPlayers().length - 1);
 			win = true;
-			time = new Timer(1000, new ActionListener() {
-				public void actionPerformed(ActionEvent e) {
-					nextLevel();
-				}
-			});
-			time.start();
+			// keep ticking so the simulation's timers reach the next level
+			sim.getTimers().schedule(LEVELDELAY, levelStart);
+			timer.start();
 		} else {
 			over = true;
 		}
@@ -135,23 +116,12 @@ public class TronMapStory extends TronMap {
 	
 	// draws images based on the results of a level
    @Override
-	public void paintComponent(Graphics g) {
-	   super.paintComponent(g);
+	void paintOverlay(Graphics g) {
 	   if (win) {
-		   try {
-			   BufferedImage picture = ImageIO.read(Picture.class.getResourceAsStream("/images/win.png"));
-			   g.drawImage(
-					   picture, MAPWIDTH / 2 - 130, MAPHEIGHT / 2 - 30, null);
-		   } catch (IOException e) {
-		   }
+		   Picture.draw(g, "win.png", MAPWIDTH / 2 - 130, MAPHEIGHT / 2 - 30);
 	   }
 	   if (over) {
-		   try{
-			   BufferedImage picture = ImageIO.read(Picture.class.getResourceAsStream("/images/over.png"));
-			   g.drawImage(
-					   picture, MAPWIDTH / 2 - 230, MAPHEIGHT / 2 - 110, null);
-		   } catch (IOException e) {
-		   }
+		   Picture.draw(g, "over.png", MAPWIDTH / 2 - 230, MAPHEIGHT / 2 - 110);
 	   }
 	}
 }
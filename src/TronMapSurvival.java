@@ -16,9 +16,15 @@ import javax.swing.*;
 @SuppressWarnings("serial")
 public class TronMapSurvival extends TronMap {
 	
-	// creates the list of high scores
-	Score highs = new Score("HighScores.txt");
+	// creates the list of high scores; each new score is appended to a
+	// journal on a background thread, so a slow disk does not hold up the
+	// game-over frame
+	final JournalScoreRepository journal = openScores();
+	final WriteBehindScoreRepository scores = new WriteBehindScoreRepository(journal);
+	Score highs = new Score(scores);
 	List<Integer> highScores = new ArrayList<Integer>();
+	// the score of the last finished run, or -1
+	int lastScore = -1;
 	
 	// constructor calls super and gets the current high scores
 	public TronMapSurvival(JLabel sco1, int p) {
@@ -29,19 +35,9 @@ public class TronMapSurvival extends TronMap {
 	// checks if the Player objects are in bounds, moves them,
 	// and checks if they are alive
 	void tick() {
-		for (Player k: players) {
-			if (k != null) {
-				k.setBounds(getWidth(), getHeight());
-				k.move();
-			}
-		}
-		for (Player k1: players) {
-			for (Player k2: players) {
-				k1.crash(k1.intersects(k2));
-			}
-		}
+		step();
 		if (!player.getAlive()) {
-			timer.stop();
+			finishMatch();
 			run = false;
 			addScore();
 			setScore();
@@ -49,7 +45,11 @@ public class TronMapSurvival extends TronMap {
 			run = true;
 			setScore();
 		}
-		repaint();
+		if (run) {
+			repaintDirty();
+		} else {
+			repaint();
+		}
 	}
 	
 	// sets the score for the current game
@@ -61,19 +61,41 @@ public class TronMapSurvival extends TronMap {
 	
 	// reinitializes all players and restarts the timer.
 	public void reset() {
-		int[] start1 = getRandomStart();
-		player = new PlayerHuman(start1[0], start1[1], 
-				start1[2], start1[3], Color.CYAN);
-		players[0] = player;
+		player = (PlayerHuman) startMatch(1, 0)[0];
 		i = 0;
 		timer.start();
 		requestFocusInWindow();
 	}
 	
+	// opens the score journal, starting a new one from the old text file
+	static JournalScoreRepository openScores() {
+		JournalScoreRepository journal = new JournalScoreRepository("HighScores");
+		File legacy = new File("HighScores.txt");
+		if (journal.isEmpty() && legacy.isFile()) {
+			try {
+				journal.write(new FileScoreRepository(legacy.getPath()).read());
+			} catch (IOException e) {
+			}
+		}
+		return journal;
+	}
+	
+	// releases the level, saves any scores still pending and closes the journal
+	@Override
+	public void dispose() {
+		super.dispose();
+		try {
+			scores.close();
+			journal.close();
+		} catch (IOException e) {
+		}
+	}
+	
 	// adds the new score to the high scores.
 	public void addScore() {
 		try {
-			highs.addHighScore(i + 1);
+			lastScore = i + 1;
+			highs.addHighScore(lastScore);
 			highScores = highs.getHighScores();
 		} catch (IOException e) {
 		}
@@ -82,7 +104,7 @@ public class TronMapSurvival extends TronMap {
 	// creates a panel that displays the current high scores.
 	public JPanel getHighs() {
 		JPanel panel = new JPanel();
-		panel.setLayout(new GridLayout(6, 2));
+		panel.setLayout(new GridLayout(lastScore < 0 ? 6 : 7, 2));
 		panel.setBackground(Color.BLACK);
 		
 		JLabel j0 = new JLabel("    Survival Mode High Scores: ");
@@ -108,14 +130,35 @@ public class TronMapSurvival extends TronMap {
 			left++;
 			right++;
 		}
+		
+		// where the last run placed among every run recorded
+		if (lastScore >= 0) {
+			JLabel rank = new JLabel(String.format("      Last run: %,d of %,d",
+					highs.getRank(lastScore), highs.getRuns()));
+			rank.setForeground(Color.WHITE);
+			rank.setBackground(Color.BLACK);
+			panel.add(rank);
+			JLabel pct = new JLabel(String.format("      Percentile: %.1f",
+					highs.getPercentile(lastScore)));
+			pct.setForeground(Color.WHITE);
+			pct.setBackground(Color.BLACK);
+			panel.add(pct);
+		}
 		return panel;
 	}
 	
-	// paints "Game Over" if the player loses
+	// paints "Game Over" if the player loses; the render loop reads the
+	// published frame, since the player is changed on the event thread
 	@Override
-	public void paintComponent(Graphics g) {
-	   super.paintComponent(g);
-	   if (!player.getAlive()) {
+	void paintOverlay(Graphics g) {
+	   boolean lost;
+	   if (frames != null) {
+		   Frame f = frames.latest();
+		   lost = f.size() > 0 && !f.isAlive(0);
+	   } else {
+		   lost = player != null && !player.getAlive();
+	   }
+	   if (lost) {
 		   Picture.draw(g, "over.png", MAPWIDTH / 2 - 230, MAPHEIGHT / 2 - 110);
 	   }
 	}
@@ -1,13 +1,8 @@
 
 
-import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.event.*;
-import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.IOException;
 
-import javax.imageio.ImageIO;
 import javax.swing.*;
 
 @SuppressWarnings("serial")
@@ -20,10 +15,11 @@ public class TronMapTwoPlayer extends TronMap {
 	private int i = 0;
 	private int j = 0;
 	
-	// outcome of the match
-	private boolean p1 = false;
-	private boolean p2 = false;
-	private boolean tie = false;
+	// outcome of the match; set on the event thread and read by the
+	// render loop, so volatile
+	private volatile boolean p1 = false;
+	private volatile boolean p2 = false;
+	private volatile boolean tie = false;
 
 	// constructor calls super and adds KeyListeners
 	public TronMapTwoPlayer(JLabel sco1, JLabel sco2, int p) {
@@ -32,23 +28,18 @@ public class TronMapTwoPlayer extends TronMap {
 		// adds KeyListeners for player two
 		addKeyListener(new KeyAdapter() {
 			public void keyPressed(KeyEvent e) {
-				if (!player2.getAlive()) {
-				} else if (e.getKeyCode() == KeyEvent.VK_A) {
-					player2.setXVelocity(-VELOCITY);
-					player2.setYVelocity(0);
+				if (e.getKeyCode() == KeyEvent.VK_A) {
+					sim.turn(player2, Direction.LEFT);
 				} else if (e.getKeyCode() == KeyEvent.VK_D) {
-					player2.setXVelocity(VELOCITY);
-					player2.setYVelocity(0);
+					sim.turn(player2, Direction.RIGHT);
 				} else if (e.getKeyCode() == KeyEvent.VK_W) {
-					player2.setYVelocity(-VELOCITY);
-					player2.setXVelocity(0);
+					sim.turn(player2, Direction.UP);
 				} else if (e.getKeyCode() == KeyEvent.VK_S) {
-					player2.setYVelocity(VELOCITY);
-					player2.setXVelocity(0);
+					sim.turn(player2, Direction.DOWN);
 				} else if (e.getKeyCode() == KeyEvent.VK_Q) {
-					player2.jump();
+					sim.jump(player2);
 				} else if (e.getKeyCode() == KeyEvent.VK_1) {
-					player2.startBoost();
+					sim.boost(player2);
 				}
 			}
 			public void keyReleased(KeyEvent e) {
@@ -58,22 +49,17 @@ public class TronMapTwoPlayer extends TronMap {
 	
 	// moves both players and checks if they crash
 	void tick() {
-		player.setBounds(getWidth(), getHeight());
-		player.move();
-		player2.setBounds(getWidth(), getHeight());
-		player2.move();
-		for (Player k1: players) {
-			for (Player k2: players) {
-				k1.crash(k1.intersects(k2));
-			}
-		}
+		step();
 		if (!player.getAlive() || !player2.getAlive()) {
-			timer.stop();
+			finishMatch();
 			run = false;
 			addScore();
-		} 
-		setScore();
-		repaint();
+			setScore();
+			repaint();
+		} else {
+			setScore();
+			repaintDirty();
+		}
 	}
 	
 	// restarts the score if the game is exited
@@ -95,14 +81,9 @@ public class TronMapTwoPlayer extends TronMap {
 		p1 = false;
 		p2 = false;
 		tie = false;
-		int[] start1 = getRandomStart();
-		player = new PlayerHuman
-				(start1[0], start1[1], start1[2], start1[3], Color.CYAN);
-		players[0] = player;
-		int[] start2 = getRandomStart();
-		player2 = new PlayerHuman
-				(start2[0], start2[1], start2[2], start2[3], Color.PINK);
-		players[1] = player2;
+		Player[] players = startMatch(2, 0);
+		player = (PlayerHuman) players[0];
+		player2 = (PlayerHuman) players[1];
 		timer.start();
 		requestFocusInWindow();
 	}
@@ -126,31 +107,15 @@ public class TronMapTwoPlayer extends TronMap {
 	
 	// draws the outcome of each match
 	@Override
-	public void paintComponent(Graphics g) {
-	   super.paintComponent(g);
+	void paintOverlay(Graphics g) {
 	   if (p1) {
-		   try {
-			   BufferedImage picture = ImageIO.read(Picture.class.getResourceAsStream("/images/p1_wins.png"));
-			   g.drawImage
-			   		(picture, MAPWIDTH / 2 - 180, MAPHEIGHT / 2 - 30, null);
-		   } catch (IOException e) {
-		   }
+		   Picture.draw(g, "p1_wins.png", MAPWIDTH / 2 - 180, MAPHEIGHT / 2 - 30);
 	   }
 	   if (p2) {
-		   try{
-			   BufferedImage picture = ImageIO.read(Picture.class.getResourceAsStream("/images/p2_wins.png"));
-			   g.drawImage
-			   		(picture, MAPWIDTH / 2 - 180, MAPHEIGHT / 2 - 30, null);
-		   } catch (IOException e) {
-		   }
+		   Picture.draw(g, "p2_wins.png", MAPWIDTH / 2 - 180, MAPHEIGHT / 2 - 30);
 	   }
 	   if (tie) {
-		   try {
-			   BufferedImage picture = ImageIO.read(Picture.class.getResourceAsStream("/images/tie.png"));
-			   g.drawImage
-			   		(picture, MAPWIDTH / 2 - 120, MAPHEIGHT / 2 - 30, null);
-		   } catch (IOException e) {			   
-		   }
+		   Picture.draw(g, "tie.png", MAPWIDTH / 2 - 120, MAPHEIGHT / 2 - 30);
 	   }
 	}
 }
@@ -0,0 +1,204 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+// Write-behind decorator: writes and added scores update the in-memory
+// scores at once and reach the wrapped repository later, on a background
+// thread. A burst of writes within the delay costs one write of the newest
+// list; added scores are handed on one by one, in order, after the last
+// write before them. Pending scores are flushed by close() and by a
+// shutdown hook, so they survive a normal JVM exit.
+public class WriteBehindScoreRepository implements ScoreRepository, Closeable {
+
+    // how long a write waits for others to coalesce with, in milliseconds
+    public static final long DEFAULT_DELAY = 250;
+    // least wait before retrying a failed background flush, in milliseconds
+    static final long RETRY_DELAY = 1000;
+
+    private final ScoreRepository delegate;
+    private final long delay;
+    private final ScheduledExecutorService writer;
+    private final Thread shutdownHook;
+    // held while writing to the delegate, so flushes land in order
+    private final Object flushLock = new Object();
+
+    // newest list written and not yet handed to the delegate, or null
+    private List<Integer> pending;
+    // scores added after pending, not yet handed to the delegate
+    private List<Integer> appends = new ArrayList<Integer>();
+    // what read() returns until the delegate has every change, or null
+    private List<Integer> latest;
+    // whether a background flush has been scheduled and not yet run
+    private boolean scheduled;
+    private boolean closed;
+
+    public WriteBehindScoreRepository(ScoreRepository delegate) {
+        this(delegate, DEFAULT_DELAY);
+    }
+
+    public WriteBehindScoreRepository(ScoreRepository delegate, long delay) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("delegate must not be null");
+        }
+        if (delay < 0) {
+            throw new IllegalArgumentException("delay must not be negative");
+        }
+        this.delegate = delegate;
+        this.delay = delay;
+        this.writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ScoreWriter");
+            t.setDaemon(true);
+            return t;
+        });
+        this.shutdownHook = new Thread(this::flushQuietly, "ScoreWriter-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    // Returns the newest scores, including ones not written yet or still being written
+    @Override
+    public List<Integer> read() throws IOException {
+        synchronized (this) {
+            if (latest != null) {
+                return new ArrayList<Integer>(latest);
+            }
+        }
+        return delegate.read();
+    }
+
+    // Streams the delegate's scores once every change has reached it
+    @Override
+    public void forEach(IntConsumer sink) throws IOException {
+        flush();
+        delegate.forEach(sink);
+    }
+
+    // Streams the delegate's scores and counts once every change has reached it
+    @Override
+    public void forEachCount(CountSink sink) throws IOException {
+        flush();
+        delegate.forEachCount(sink);
+    }
+
+    // Records the scores and schedules a background write; never blocks on I/O
+    @Override
+    public synchronized void write(List<Integer> scores) throws IOException {
+        if (scores == null) {
+            throw new IllegalArgumentException("scores must not be null");
+        }
+        if (closed) {
+            throw new IOException("repository is closed");
+        }
+        pending = new ArrayList<Integer>(scores);
+        // the write replaces everything added before it
+        appends.clear();
+        latest = pending;
+        schedule();
+    }
+
+    // Records a new score and schedules handing it on; never blocks on I/O
+    @Override
+    public synchronized void add(int score, List<Integer> top) throws IOException {
+        if (top == null) {
+            throw new IllegalArgumentException("top must not be null");
+        }
+        if (closed) {
+            throw new IOException("repository is closed");
+        }
+        appends.add(score);
+        latest = new ArrayList<Integer>(top);
+        schedule();
+    }
+
+    private void schedule() {
+        if (!scheduled) {
+            scheduled = true;
+            writer.schedule(this::flushQuietly, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Writes any pending scores now, on the calling thread
+    public void flush() throws IOException {
+        synchronized (flushLock) {
+            List<Integer> scores;
+            List<Integer> added;
+            List<Integer> top;
+            synchronized (this) {
+                scores = pending;
+                added = appends;
+                top = latest;
+                pending = null;
+                appends = new ArrayList<Integer>();
+                scheduled = false;
+            }
+            int done = 0;
+            try {
+                if (scores != null) {
+                    delegate.write(scores);
+                    scores = null;
+                }
+                for (; done < added.size(); done++) {
+                    delegate.add(added.get(done), top);
+                }
+            } catch (IOException | RuntimeException e) {
+                synchronized (this) {
+                    // keep what did not get through for the next attempt, ahead
+                    // of anything added since, unless a newer write replaced it
+                    if (pending == null) {
+                        pending = scores;
+                        List<Integer> rest = new ArrayList<Integer>(added.subList(done, added.size()));
+                        rest.addAll(appends);
+                        appends = rest;
+                    }
+                }
+                throw e;
+            } finally {
+                synchronized (this) {
+                    // read() keeps seeing the scores until the delegate has them all
+                    if (pending == null && appends.isEmpty()) {
+                        latest = null;
+                    }
+                }
+            }
+        }
+    }
+
+    // Flushes pending scores and stops the background thread
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        writer.shutdown();
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // already shutting down; the hook flushes too
+        }
+        flush();
+    }
+
+    // background and shutdown flushes have no caller to report to; a failed
+    // one is retried later
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Failed to write high scores (" + e + ")");
+            synchronized (this) {
+                if (!closed && !scheduled && (pending != null || !appends.isEmpty())) {
+                    scheduled = true;
+                    writer.schedule(this::flushQuietly, Math.max(delay, RETRY_DELAY),
+                            TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+import java.util.List;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class AssetLoaderTest {
+
+	@Test
+	public void preloadsEveryImageIntoTheCaches() {
+		List<String> names = AssetLoader.listImages();
+		assertTrue(names.contains("tron0_0.jpg"));
+		assertTrue(names.contains("play_before.png"));
+		AssetLoader.preloadAll().join();
+		assertTrue(AssetLoader.preloadAll().isDone());
+		for (String name : names) {
+			assertNotNull(name, AssetLoader.image(name));
+			assertSame(Picture.get(name), AssetLoader.image(name));
+		}
+		// sprites come from the atlas; the rest were decoded into the cache
+		assertTrue(Picture.getAtlas().contains("play_before.png"));
+		assertFalse(Picture.getAtlas().contains("tron0_0.jpg"));
+		assertNotNull(Picture.getCache().peek("tron0_0.jpg"));
+	}
+
+	@Test
+	public void iconsAreBuiltOnce() {
+		assertSame(AssetLoader.icon("restart.png"), AssetLoader.icon("restart.png"));
+		assertTrue(AssetLoader.icon("restart.png").getIconWidth() > 0);
+		assertEquals(-1, AssetLoader.icon("no_such_image.png").getIconWidth());
+	}
+}
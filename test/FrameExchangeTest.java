@@ -0,0 +1,125 @@
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class FrameExchangeTest {
+
+	@Test
+	public void readerGetsTheNewestFrame() {
+		Simulation sim = new Simulation(500, 500);
+		FrameExchange frames = new FrameExchange();
+		assertEquals(0, frames.latest().size());
+		sim.setFrameExchange(frames);
+		sim.start(1L, 0, 4);
+		for (int i = 0; i < 5; i++) {
+			sim.step();
+		}
+		Frame f = frames.latest();
+		assertEquals(5, f.getTick());
+		assertEquals(4, f.size());
+		assertSame(f, frames.latest());
+		sim.step();
+		assertEquals(6, frames.latest().getTick());
+	}
+
+	@Test
+	public void framesHoldStillWhileTheMatchGoesOn() {
+		Simulation sim = new Simulation(500, 500);
+		FrameExchange frames = new FrameExchange();
+		sim.setFrameExchange(frames);
+		Player[] players = sim.start(2L, 0, 3);
+		for (int i = 0; i < 50; i++) {
+			sim.step();
+		}
+		Frame f = frames.latest();
+		int size = f.getTrail(0).size();
+		int endX = f.getTrail(0).getEndX(size - 1);
+		int endY = f.getTrail(0).getEndY(size - 1);
+		for (int i = 0; i < 50; i++) {
+			sim.step();
+		}
+		assertEquals(size, f.getTrail(0).size());
+		assertEquals(endX, f.getTrail(0).getEndX(size - 1));
+		assertEquals(endY, f.getTrail(0).getEndY(size - 1));
+		assertTrue(players[0].getPath().size() >= size);
+	}
+
+	@Test
+	public void trailsStopAtTheInterpolatedHead() {
+		Simulation sim = new Simulation(500, 500);
+		FrameExchange frames = new FrameExchange();
+		sim.setFrameExchange(frames);
+		sim.start(4L, 1, 0);
+		for (int i = 0; i < 20; i++) {
+			sim.step();
+		}
+		Frame f = frames.latest();
+		assertTrue(f.isAlive(0));
+		int x0 = f.getX(0, 0);
+		int y0 = f.getY(0, 0);
+		int x1 = f.getX(0, 1);
+		int y1 = f.getY(0, 1);
+		assertTrue(x0 != x1 || y0 != y1);
+		int color = f.getColor(0).getRGB();
+		TrailLayer layer = new TrailLayer(500, 500, Color.BLACK);
+		BufferedImage target = new BufferedImage(500, 500, BufferedImage.TYPE_INT_RGB);
+
+		// at the start of the step the trail ends where the head is drawn
+		layer.paint(target.getGraphics(), f, 0, null);
+		assertEquals(color, target.getRGB(x0, y0));
+		assertEquals(Color.BLACK.getRGB(), target.getRGB(x1, y1));
+
+		// and it grows with the head through the rest of the step
+		layer.paint(target.getGraphics(), f, 1, null);
+		assertEquals(color, target.getRGB(x1, y1));
+	}
+
+	@Test
+	public void renderThreadKeepsUpWithoutBlocking() throws Exception {
+		final Simulation sim = new Simulation(500, 500);
+		final FrameExchange frames = new FrameExchange();
+		sim.setFrameExchange(frames);
+		final Player[] players = sim.start(3L, 0, 6);
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		final TrailLayer layer = new TrailLayer(500, 500, Color.BLACK);
+		final BufferedImage target = new BufferedImage(500, 500, BufferedImage.TYPE_INT_RGB);
+
+		Thread renderer = new Thread(new Runnable() {
+			public void run() {
+				try {
+					long last = -1;
+					while (!Thread.currentThread().isInterrupted()) {
+						Frame f = frames.latest();
+						assertTrue(f.getTick() >= last);
+						last = f.getTick();
+						layer.paint(target.getGraphics(), f, null);
+					}
+				} catch (Throwable t) {
+					failure.set(t);
+				}
+			}
+		});
+		renderer.start();
+		for (int i = 0; i < 2000 && sim.countAlive() > 1; i++) {
+			sim.step();
+		}
+		renderer.interrupt();
+		renderer.join();
+		assertNull(failure.get());
+
+		// a final frame brings the layer level with the live trails
+		layer.paint(target.getGraphics(), frames.latest(), null);
+		TrailLayer live = new TrailLayer(500, 500, Color.BLACK);
+		BufferedImage expected = new BufferedImage(500, 500, BufferedImage.TYPE_INT_RGB);
+		live.paint(expected.getGraphics(), players, null);
+		int black = Color.BLACK.getRGB();
+		for (int y = 0; y < 500; y++) {
+			for (int x = 0; x < 500; x++) {
+				assertEquals(expected.getRGB(x, y) == black, target.getRGB(x, y) == black);
+			}
+		}
+	}
+}
@@ -0,0 +1,84 @@
+import java.awt.image.BufferedImage;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ImageCacheTest {
+
+	// 10x10 ARGB images: 400 bytes each
+	private static final Function<String, BufferedImage> SMALL =
+			k -> new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB);
+
+	@Test
+	public void countsHitsAndMisses() {
+		ImageCache cache = new ImageCache(10000);
+		BufferedImage a = cache.get("a", SMALL);
+		assertSame(a, cache.get("a", SMALL));
+		assertSame(a, cache.get("a", SMALL));
+		assertNull(cache.get("missing", k -> null));
+		assertEquals(2, cache.getHits());
+		assertEquals(2, cache.getMisses());
+		assertEquals(400, cache.getBytes());
+		assertTrue(cache.getLoadNanos() >= 0);
+	}
+
+	@Test
+	public void evictsLeastRecentlyUsedWithinBudget() {
+		ImageCache cache = new ImageCache(1000);
+		cache.get("a", SMALL);
+		cache.get("b", SMALL);
+		cache.get("a", SMALL);
+		cache.get("c", SMALL);
+		assertEquals(1, cache.getEvictions());
+		assertNull(cache.peek("b"));
+		assertNotNull(cache.peek("a"));
+		assertNotNull(cache.peek("c"));
+		assertTrue(cache.getBytes() <= 1000);
+	}
+
+	@Test
+	public void oversizedImageIsReturnedButNotKept() {
+		ImageCache cache = new ImageCache(100);
+		assertNotNull(cache.get("big", SMALL));
+		assertNull(cache.peek("big"));
+		assertEquals(0, cache.getBytes());
+
+		// nor does it push out the images already kept
+		ImageCache full = new ImageCache(1000);
+		full.get("a", SMALL);
+		full.get("b", SMALL);
+		assertNotNull(full.get("huge", k -> new BufferedImage(40, 40, BufferedImage.TYPE_INT_ARGB)));
+		assertNull(full.peek("huge"));
+		assertEquals(2, full.size());
+		assertEquals(800, full.getBytes());
+		assertEquals(0, full.getEvictions());
+	}
+
+	@Test
+	public void concurrentReadersStayWithinBudget() throws Exception {
+		final ImageCache cache = new ImageCache(4000);
+		final AtomicInteger loads = new AtomicInteger();
+		Thread[] threads = new Thread[8];
+		for (int t = 0; t < threads.length; t++) {
+			final int seed = t;
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < 2000; i++) {
+					cache.get("img" + ((i * 7 + seed) % 20), k -> {
+						loads.incrementAndGet();
+						return SMALL.apply(k);
+					});
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread t : threads) {
+			t.join();
+		}
+		assertTrue(cache.getBytes() <= 4000);
+		assertEquals(cache.size() * 400L, cache.getBytes());
+		assertEquals(16000, cache.getHits() + cache.getMisses());
+		assertEquals(loads.get(), cache.getMisses());
+	}
+}
@@ -0,0 +1,195 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+public class JournalScoreRepositoryTest {
+
+    private static JournalScoreRepository open(Path dir, int compactRecords) {
+        return new JournalScoreRepository(dir.resolve("scores.snap"), dir.resolve("scores.log"),
+                3, compactRecords);
+    }
+
+    private static Path tempDir() throws IOException {
+        Path dir = Files.createTempDirectory("jsr-");
+        dir.toFile().deleteOnExit();
+        return dir;
+    }
+
+    @Test
+    public void appendsAreFixedSizeRecords() throws IOException {
+        Path dir = tempDir();
+        JournalScoreRepository repo = open(dir, 1000);
+        assertTrue(repo.isEmpty());
+        assertTrue(repo.read().isEmpty());
+        repo.add(5, null);
+        repo.add(9, null);
+        repo.add(1, null);
+        repo.add(7, null);
+        assertEquals(Arrays.asList(9, 7, 5), repo.read());
+        assertEquals(4 * JournalScoreRepository.RECORD, Files.size(dir.resolve("scores.log")));
+        repo.close();
+
+        JournalScoreRepository again = open(dir, 1000);
+        assertEquals(Arrays.asList(9, 7, 5), again.read());
+        again.close();
+    }
+
+    @Test
+    public void compactionFoldsTheLogIntoASnapshot() throws IOException {
+        Path dir = tempDir();
+        JournalScoreRepository repo = open(dir, 50);
+        Random r = new Random(3);
+        int[] all = new int[175];
+        for (int i = 0; i < all.length; i++) {
+            all[i] = r.nextInt(100000);
+            repo.add(all[i], null);
+        }
+        Arrays.sort(all);
+        repo.compact();
+        assertTrue(Files.exists(dir.resolve("scores.snap")));
+        assertFalse(Files.exists(dir.resolve("scores.log.old")));
+        assertTrue(Files.size(dir.resolve("scores.log")) < 50 * JournalScoreRepository.RECORD);
+        repo.close();
+
+        JournalScoreRepository again = open(dir, 50);
+        assertEquals(Arrays.asList(all[174], all[173], all[172]), again.read());
+        again.close();
+    }
+
+    @Test
+    public void tornTailIsDropped() throws IOException {
+        Path dir = tempDir();
+        JournalScoreRepository repo = open(dir, 1000);
+        repo.add(4, null);
+        repo.add(8, null);
+        repo.close();
+        // a crash in the middle of the third append
+        Files.write(dir.resolve("scores.log"), new byte[] {0, 0, 0, 0, 0, 0, 0},
+                StandardOpenOption.APPEND);
+
+        JournalScoreRepository again = open(dir, 1000);
+        assertEquals(Arrays.asList(8, 4), again.read());
+        again.add(6, null);
+        again.close();
+        assertEquals(3 * JournalScoreRepository.RECORD, Files.size(dir.resolve("scores.log")));
+        JournalScoreRepository third = open(dir, 1000);
+        assertEquals(Arrays.asList(8, 6, 4), third.read());
+        third.close();
+    }
+
+    @Test
+    public void interruptedCompactionCountsNothingTwice() throws IOException {
+        Path dir = tempDir();
+        JournalScoreRepository repo = open(dir, 1000);
+        repo.write(Arrays.asList(10, 2));
+        repo.add(3, null);
+        repo.add(10, null);
+        repo.close();
+        // the log was set aside, but the snapshot folding it in was never written
+        Files.move(dir.resolve("scores.log"), dir.resolve("scores.log.old"));
+
+        JournalScoreRepository again = open(dir, 1000);
+        assertEquals(Arrays.asList(10, 10, 3), again.read());
+        assertFalse(Files.exists(dir.resolve("scores.log.old")));
+        again.close();
+        JournalScoreRepository third = open(dir, 1000);
+        assertEquals(Arrays.asList(10, 10, 3), third.read());
+        third.close();
+    }
+
+    @Test
+    public void scoreAppendsThroughTheJournal() throws IOException {
+        Path dir = tempDir();
+        JournalScoreRepository repo = open(dir, 1000);
+        Score s = new Score(repo);
+        s.addHighScore(12);
+        s.addHighScore(30);
+        assertEquals(Integer.valueOf(30), s.getHighScores().get(0));
+        assertEquals(2 * JournalScoreRepository.RECORD, Files.size(dir.resolve("scores.log")));
+        assertFalse(Files.exists(dir.resolve("scores.snap")));
+        repo.close();
+    }
+
+    @Test
+    public void historySurvivesCompaction() throws IOException {
+        Path dir = tempDir();
+        JournalScoreRepository repo = open(dir, 4);
+        for (int v : new int[] {5, 1, 5, 9, 1, 1, 7}) {
+            repo.add(v, null);
+        }
+        repo.compact();
+        repo.close();
+
+        JournalScoreRepository again = open(dir, 4);
+        final StringBuilder seen = new StringBuilder();
+        again.forEach(v -> seen.append(v).append(' '));
+        assertEquals("9 7 5 5 1 1 1 ", seen.toString());
+        final StringBuilder counted = new StringBuilder();
+        again.forEachCount((v, n) -> counted.append(v).append('x').append(n).append(' '));
+        assertEquals("9x1 7x1 5x2 1x3 ", counted.toString());
+        Score s = new Score(again);
+        assertEquals(7, s.getRuns());
+        assertEquals(3, s.getRank(5));
+        assertEquals(5, s.getScoreAtPercentile(50));
+        assertEquals(9, s.getScoreAtPercentile(100));
+        again.close();
+    }
+
+    // a snapshot with the given version and (score, times) entries
+    private static void writeSnapshot(Path file, int version, int[] scores, long[] times)
+            throws IOException {
+        int entry = version == 2 ? 8 : 12;
+        ByteBuffer buf = ByteBuffer.allocate(20 + entry * scores.length + 4);
+        buf.putInt(0x54524E4A).putInt(version).putLong(1).putInt(scores.length);
+        for (int i = 0; i < scores.length; i++) {
+            buf.putInt(scores[i]);
+            if (version == 2) {
+                buf.putInt((int) times[i]);
+            } else {
+                buf.putLong(times[i]);
+            }
+        }
+        CRC32 c = new CRC32();
+        c.update(buf.array(), 0, buf.position());
+        buf.putInt((int) c.getValue());
+        Files.write(file, buf.array());
+    }
+
+    @Test
+    public void countsPastTheIntRangeSurviveCompaction() throws IOException {
+        Path dir = tempDir();
+        long many = Integer.MAX_VALUE + 5L;
+        writeSnapshot(dir.resolve("scores.snap"), 3, new int[] {7, 3}, new long[] {2, many});
+        JournalScoreRepository repo = open(dir, 1000);
+        repo.add(3, null);
+        repo.compact();
+        repo.close();
+
+        JournalScoreRepository again = open(dir, 1000);
+        final StringBuilder counted = new StringBuilder();
+        again.forEachCount((v, n) -> counted.append(v).append('x').append(n).append(' '));
+        assertEquals("7x2 3x" + (many + 1) + " ", counted.toString());
+        assertEquals(Arrays.asList(7, 7, 3), again.read());
+        again.close();
+    }
+
+    @Test
+    public void readsVersionTwoSnapshots() throws IOException {
+        Path dir = tempDir();
+        writeSnapshot(dir.resolve("scores.snap"), 2, new int[] {9, 4}, new long[] {1, 3});
+        JournalScoreRepository repo = open(dir, 1000);
+        assertEquals(Arrays.asList(9, 4, 4), repo.read());
+        final long[] runs = {0};
+        repo.forEachCount((v, n) -> runs[0] += n);
+        assertEquals(4, runs[0]);
+        repo.close();
+    }
+}
@@ -0,0 +1,53 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class LeaderboardTest {
+
+    @Test
+    public void matchesABruteForceCount() {
+        Random r = new Random(8);
+        int[] all = new int[20000];
+        Leaderboard board = new Leaderboard();
+        for (int i = 0; i < all.length; i++) {
+            // mostly short runs with a long tail, past the initial buckets
+            all[i] = (int) (-Math.log(1 - r.nextDouble()) * 800);
+            board.accept(all[i]);
+        }
+        assertEquals(all.length, board.size());
+        Arrays.sort(all);
+        for (int q = 0; q < 200; q++) {
+            int score = r.nextInt(6000);
+            int above = 0;
+            for (int v : all) {
+                if (v > score) above++;
+            }
+            assertEquals(above + 1, board.rank(score));
+            assertEquals(100.0 * (all.length - above) / all.length, board.percentile(score), 1e-9);
+        }
+        assertEquals(all[0], board.scoreAtPercentile(0));
+        assertEquals(all[all.length / 2 - 1], board.scoreAtPercentile(50));
+        assertEquals(all[all.length - 1], board.scoreAtPercentile(100));
+        assertEquals(1, board.rank(all[all.length - 1]));
+    }
+
+    @Test
+    public void clampsOutOfRangeScores() {
+        Leaderboard board = new Leaderboard();
+        board.accept(-5);
+        board.accept(Integer.MAX_VALUE);
+        board.add(10, 3);
+        assertEquals(5, board.size());
+        assertEquals(1, board.countAtMost(0));
+        assertEquals(4, board.countAtMost(10));
+        assertEquals(Leaderboard.MAX_SCORE, board.scoreAtPercentile(100));
+        assertEquals(1, board.rank(Integer.MAX_VALUE));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void emptyBoardHasNoPercentiles() {
+        new Leaderboard().scoreAtPercentile(50);
+    }
+}
@@ -0,0 +1,153 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class MappedScoreRepositoryTest {
+
+    private static Path tempFile(String suffix) throws IOException {
+        Path p = Files.createTempFile("msr-", suffix);
+        p.toFile().deleteOnExit();
+        return p;
+    }
+
+    @Test
+    public void convertsTextAndKeepsTheTopInFront() throws IOException {
+        Path text = tempFile(".txt");
+        Files.write(text, Arrays.asList("30", "bogus", "", "10", " 50 ", "20"), StandardCharsets.UTF_8);
+        Path bin = tempFile(".bin");
+        assertEquals(4, MappedScoreRepository.convert(text, bin));
+
+        // header, then little-endian ints
+        ByteBuffer raw = ByteBuffer.wrap(Files.readAllBytes(bin)).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals('T', raw.get(0));
+        assertEquals(4, raw.getInt(8));
+        assertEquals(50, raw.getInt(MappedScoreRepository.HEADER));
+
+        MappedScoreRepository repo = new MappedScoreRepository(bin.toString());
+        assertEquals(Arrays.asList(50, 30, 20, 10), repo.read());
+        assertEquals(Arrays.asList(50, 30, 20, 10), repo.readTop());
+        repo.add(40, null);
+        assertEquals(Arrays.asList(50, 40, 30, 20, 10), repo.readTop());
+        repo.close();
+    }
+
+    @Test
+    public void addsInPlaceAndGrows() throws IOException {
+        Path bin = tempFile(".bin");
+        Files.delete(bin);
+        MappedScoreRepository repo = new MappedScoreRepository(bin, 5);
+        assertTrue(repo.read().isEmpty());
+        Random r = new Random(4);
+        List<Integer> all = new ArrayList<Integer>();
+        for (int i = 0; i < 5000; i++) {
+            int v = r.nextInt(1000000);
+            all.add(v);
+            repo.add(v, null);
+        }
+        repo.close();
+
+        MappedScoreRepository again = new MappedScoreRepository(bin, 5);
+        List<Integer> stored = again.read();
+        assertEquals(5000, stored.size());
+        List<Integer> sortedStored = new ArrayList<Integer>(stored);
+        sortedStored.sort(null);
+        all.sort(null);
+        assertEquals(all, sortedStored);
+        assertEquals(Arrays.asList(all.get(4999), all.get(4998), all.get(4997), all.get(4996),
+                all.get(4995)), again.readTop());
+        assertEquals(again.readTop(), stored.subList(0, 5));
+        again.close();
+    }
+
+    @Test
+    public void scoreLoadsTheTopFromABinaryFile() throws IOException {
+        Path bin = tempFile(".bin");
+        MappedScoreRepository repo = new MappedScoreRepository(bin, 10);
+        repo.write(Arrays.asList(3, 9, 4));
+        assertEquals(Arrays.asList(9, 4, 3), repo.readTop());
+        Score s = new Score(repo);
+        s.addHighScore(7);
+        assertEquals(Arrays.asList(9, 7, 4, 3, 0, 0, 0, 0, 0, 0), s.getHighScores());
+        assertEquals(4, repo.read().size());
+        assertEquals(Arrays.asList(9, 7, 4, 3), repo.readTop());
+        repo.close();
+    }
+
+    @Test
+    public void writeKeepsTheLargestScoresInTheTopRegion() throws IOException {
+        Path bin = tempFile(".bin");
+        MappedScoreRepository repo = new MappedScoreRepository(bin, 3);
+        repo.write(Arrays.asList(5, 1, 8, 5, 2, 9, 5));
+        assertEquals(Arrays.asList(9, 8, 5), repo.readTop());
+        assertEquals(Arrays.asList(9, 8, 5, 1, 5, 2, 5), repo.read());
+        repo.add(6, null);
+        assertEquals(Arrays.asList(9, 8, 6), repo.readTop());
+        repo.close();
+    }
+
+    @Test
+    public void topRegionMayBeLargerThanTheWriteBuffer() throws IOException {
+        Path bin = tempFile(".bin");
+        Files.delete(bin);
+        // 40000 ints do not fit the 64 KB buffer the file is written through
+        MappedScoreRepository repo = new MappedScoreRepository(bin, 40000);
+        List<Integer> scores = new ArrayList<Integer>();
+        for (int i = 0; i < 50000; i++) {
+            scores.add(i);
+        }
+        repo.write(scores);
+        List<Integer> top = repo.readTop();
+        assertEquals(40000, top.size());
+        assertEquals(Integer.valueOf(49999), top.get(0));
+        assertEquals(Integer.valueOf(10000), top.get(39999));
+        assertEquals(50000, repo.read().size());
+        repo.close();
+    }
+
+    @Test
+    public void writeAfterMappingRewritesTheFileInPlace() throws IOException {
+        Path bin = tempFile(".bin");
+        MappedScoreRepository repo = new MappedScoreRepository(bin, 3);
+        repo.write(Arrays.asList(4, 7, 1));
+        assertEquals(Arrays.asList(7, 4, 1), repo.read());
+        Object key = Files.readAttributes(bin, BasicFileAttributes.class).fileKey();
+
+        // the file is mapped now; it must not be replaced by a rename
+        repo.write(Arrays.asList(2, 6));
+        assertEquals(Arrays.asList(6, 2), repo.read());
+        List<Integer> many = new ArrayList<Integer>();
+        for (int i = 0; i < 3000; i++) {
+            many.add(i % 100);
+        }
+        repo.write(many);
+        assertEquals(Arrays.asList(99, 99, 99), repo.readTop());
+        assertEquals(3000, repo.read().size());
+        if (key != null) {
+            assertEquals(key, Files.readAttributes(bin, BasicFileAttributes.class).fileKey());
+        }
+        repo.close();
+
+        MappedScoreRepository again = new MappedScoreRepository(bin, 3);
+        assertEquals(3000, again.read().size());
+        assertEquals(Arrays.asList(99, 99, 99), again.readTop());
+        again.close();
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsOtherFiles() throws IOException {
+        Path text = tempFile(".txt");
+        Files.write(text, Arrays.asList("1", "2", "3", "4", "5", "6", "7", "8"), StandardCharsets.UTF_8);
+        new MappedScoreRepository(text, 10).read();
+    }
+}
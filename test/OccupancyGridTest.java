@@ -0,0 +1,61 @@
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class OccupancyGridTest {
+
+	// walks a ray one cell at a time, for comparison
+	private static int walk(OccupancyGrid g, int x, int y, int dx, int dy, int max) {
+		int d = 0;
+		while (d < max) {
+			int nx = x + (d + 1) * dx;
+			int ny = y + (d + 1) * dy;
+			if (nx < 0 || ny < 0 || nx >= g.getWidth() || ny >= g.getHeight()
+					|| g.get(nx, ny)) {
+				break;
+			}
+			d++;
+		}
+		return d;
+	}
+
+	@Test
+	public void raysMatchACellByCellWalk() {
+		Random r = new Random(3);
+		OccupancyGrid g = new OccupancyGrid(300, 200);
+		for (int i = 0; i < 40; i++) {
+			int x = r.nextInt(300);
+			int y = r.nextInt(200);
+			if (r.nextBoolean()) {
+				g.stampSegment(x, y, x + r.nextInt(120) - 60, y, 2, 2);
+			} else {
+				g.stampSegment(x, y, x, y + r.nextInt(120) - 60, 2, 2);
+			}
+		}
+		int[][] dirs = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+		for (int i = 0; i < 2000; i++) {
+			int x = r.nextInt(300);
+			int y = r.nextInt(200);
+			int max = 1 + r.nextInt(400);
+			for (int[] d : dirs) {
+				assertEquals(walk(g, x, y, d[0], d[1], max),
+						g.distance(x, y, d[0], d[1], max));
+			}
+		}
+	}
+
+	@Test
+	public void rayCrossesEmptyPagesToTheEdge() {
+		OccupancyGrid g = new OccupancyGrid(5000, 3);
+		assertEquals(4998, g.distance(1, 1, 1, 0, 10000));
+		g.fillRow(4990, 4990, 1);
+		assertEquals(4988, g.distance(1, 1, 1, 0, 10000));
+		assertEquals(8, g.distance(4999, 1, -1, 0, 10000));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsDiagonalRays() {
+		new OccupancyGrid(10, 10).distance(0, 0, 1, 1, 5);
+	}
+}
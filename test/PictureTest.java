@@ -0,0 +1,17 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class PictureTest {
+
+	@Test
+	public void decodesOnceAndServesFromCache() {
+		assertNotNull(Picture.get("win.png"));
+		assertSame(Picture.get("win.png"), Picture.get("win.png"));
+	}
+
+	@Test
+	public void missingImageIsNull() {
+		assertNull(Picture.get("no_such_image.png"));
+		assertNull(Picture.get(""));
+	}
+}
@@ -0,0 +1,76 @@
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ReplayExporterTest {
+
+	private static Replay record(long seed, int steps) throws IOException {
+		Simulation sim = new Simulation(500, 500);
+		sim.setRecorder(new ReplayRecorder());
+		Player[] players = sim.start(seed, 1, 3);
+		for (int t = 0; t < steps; t++) {
+			if (t == 30) {
+				sim.turn(players[0], Direction.UP);
+			}
+			sim.step();
+		}
+		return Replay.read(sim.finishRecording());
+	}
+
+	@Test
+	public void framesShowTheReplayedMatch() throws IOException {
+		Replay replay = record(31L, 203);
+		Path dir = Files.createTempDirectory("frames");
+		try {
+			assertEquals(42, new ReplayExporter(5, 3).export(replay, dir));
+			assertEquals(42, dir.toFile().list().length);
+
+			// the last frame is the end of the match, drawn the way the court is
+			Simulation sim = replay.play();
+			BufferedImage expected = new BufferedImage(500, 500, BufferedImage.TYPE_INT_RGB);
+			ReplayExporter.draw(expected, new TrailLayer(500, 500, Color.BLACK), sim.getPlayers());
+			BufferedImage last = ImageIO.read(dir.resolve("frame_000041.png").toFile());
+			assertEquals(500, last.getWidth());
+			for (int y = 0; y < 500; y++) {
+				for (int x = 0; x < 500; x++) {
+					assertEquals(expected.getRGB(x, y), last.getRGB(x, y));
+				}
+			}
+		} finally {
+			for (File f : dir.toFile().listFiles()) {
+				f.delete();
+			}
+			Files.delete(dir);
+		}
+	}
+
+	@Test
+	public void encodedPngDecodesToTheSamePixels() throws IOException {
+		BufferedImage img = new BufferedImage(7, 3, BufferedImage.TYPE_INT_ARGB);
+		for (int i = 0; i < 21; i++) {
+			img.setRGB(i % 7, i / 7, 0xFF000000 | i * 0x0B1F37);
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		PngWriter writer = new PngWriter(6);
+		writer.write(img.getSubimage(1, 1, 5, 2), out);
+		writer.dispose();
+		BufferedImage back = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+		assertEquals(5, back.getWidth());
+		assertEquals(2, back.getHeight());
+		for (int y = 0; y < 2; y++) {
+			for (int x = 0; x < 5; x++) {
+				assertEquals(img.getRGB(x + 1, y + 1), back.getRGB(x, y));
+			}
+		}
+	}
+}
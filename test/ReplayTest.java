@@ -0,0 +1,145 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.Random;
+
+public class ReplayTest {
+
+	// plays a recorded match with random inputs for the human players
+	private static Simulation recordMatch(long seed, int humans, int ais, int steps) {
+		Simulation sim = new Simulation(500, 500);
+		sim.setRecorder(new ReplayRecorder());
+		Player[] players = sim.start(seed, humans, ais);
+		Random input = new Random(seed);
+		for (int t = 0; t < steps; t++) {
+			for (int i = 0; i < humans; i++) {
+				int r = input.nextInt(40);
+				if (r < 4) {
+					sim.turn(players[i], Direction.values()[r]);
+				} else if (r == 4) {
+					sim.jump(players[i]);
+				} else if (r == 5) {
+					sim.boost(players[i]);
+				}
+			}
+			sim.step();
+		}
+		return sim;
+	}
+
+	@Test
+	public void replayReproducesMatch() throws IOException {
+		Simulation live = recordMatch(99L, 2, 3, 600);
+		byte[] data = live.finishRecording();
+		Replay replay = Replay.read(data);
+		assertEquals(600, replay.getLength());
+		assertTrue(replay.getInputCount() > 0);
+
+		Simulation copy = replay.play();
+		Player[] a = live.getPlayers();
+		Player[] b = copy.getPlayers();
+		assertEquals(a.length, b.length);
+		for (int i = 0; i < a.length; i++) {
+			assertEquals(a[i].x, b[i].x);
+			assertEquals(a[i].y, b[i].y);
+			assertEquals(a[i].getAlive(), b[i].getAlive());
+			assertEquals(a[i].getBoostsLeft(), b[i].getBoostsLeft());
+			assertEquals(a[i].getPath().size(), b[i].getPath().size());
+		}
+	}
+
+	@Test
+	public void inputsCostAFewBytesEach() throws IOException {
+		Simulation live = recordMatch(5L, 1, 0, 3000);
+		byte[] data = live.finishRecording();
+		Replay replay = Replay.read(data);
+		assertTrue(data.length <= 32 + 3 * replay.getInputCount());
+	}
+
+	@Test
+	public void finishWithoutRecorderReturnsNull() {
+		Simulation sim = new Simulation(500, 500);
+		sim.start(1L, 1, 0);
+		assertNull(sim.finishRecording());
+	}
+
+	@Test(expected = IOException.class)
+	public void rejectsForeignData() throws IOException {
+		Replay.read(new byte[] {1, 2, 3, 4, 5, 6});
+	}
+
+	@Test(expected = IOException.class)
+	public void rejectsPlayerIndexThatWouldWrapNegative() throws IOException {
+		java.io.ByteArrayOutputStream out = new java.io.ByteArrayOutputStream();
+		out.write(Replay.MAGIC, 0, Replay.MAGIC.length);
+		out.write(Replay.VERSION);
+		// grid and court 500x500, seed 0, one human, one AI
+		byte[] header = {(byte) 0xF4, 3, (byte) 0xF4, 3, (byte) 0xF4, 3, (byte) 0xF4, 3, 0, 1, 1};
+		out.write(header, 0, header.length);
+		// an input at step 0 for player 2^31, which is negative as an int
+		long code = (1L << 31) << Replay.ACTION_BITS | Replay.JUMP;
+		out.write(0);
+		while (code >= 0x80) {
+			out.write((int) (code & 0x7F) | 0x80);
+			code >>>= 7;
+		}
+		out.write((int) code);
+		// then a well-formed end, so only the player index is wrong
+		out.write(0);
+		out.write(Replay.END);
+		Replay.read(out.toByteArray());
+	}
+
+	// a replay with the given header values and no inputs
+	private static byte[] header(long... values) {
+		java.io.ByteArrayOutputStream out = new java.io.ByteArrayOutputStream();
+		out.write(Replay.MAGIC, 0, Replay.MAGIC.length);
+		out.write(Replay.VERSION);
+		for (long v : values) {
+			while ((v & ~0x7FL) != 0) {
+				out.write((int) (v & 0x7F) | 0x80);
+				v >>>= 7;
+			}
+			out.write((int) v);
+		}
+		// end of the match at step 0
+		out.write(0);
+		out.write(Replay.END);
+		return out.toByteArray();
+	}
+
+	@Test
+	public void rejectsHeadersThatWouldAllocateTooMuch() throws IOException {
+		// grid width, grid height, court width, court height, seed, humans, AIs
+		assertEquals(0, Replay.read(header(500, 500, 500, 500, 0, 1, 1)).getLength());
+		long[][] bad = {
+				{1L << 31, 500, 500, 500, 0, 1, 1},
+				{Replay.MAX_COURT + 1, 500, 500, 500, 0, 1, 1},
+				{500, 500, 501, 500, 0, 1, 1},
+				{500, 500, 500, 0, 0, 1, 1},
+				{500, 500, 500, 500, 0, 1L << 32, 0},
+				{500, 500, 500, 500, 0, 1, Replay.MAX_PLAYERS},
+		};
+		for (long[] h : bad) {
+			try {
+				Replay.read(header(h));
+				fail("accepted " + java.util.Arrays.toString(h));
+			} catch (IOException expected) {
+			}
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void rejectsReplaysFromBeforeSpawnHashing() throws IOException {
+		byte[] data = recordMatch(3L, 1, 1, 50).finishRecording();
+		data[Replay.MAGIC.length] = 1;
+		Replay.read(data);
+	}
+
+	@Test(expected = IOException.class)
+	public void rejectsTruncatedData() throws IOException {
+		byte[] data = recordMatch(3L, 1, 1, 200).finishRecording();
+		Replay.read(java.util.Arrays.copyOf(data, data.length - 1));
+	}
+}
@@ -35,11 +35,11 @@ public class ScoreTest {
         Path p = writeTempFile("100", "", "abc", " 200 ", "  ", "300x", "400");
         Score s = new Score(p.toString());
         List<Integer> highs = s.getHighScores();
-		// Expect the valid integers in order of appearance, then zeros padded to 10
+		// Expect the valid integers largest first, then zeros padded to 10
 		assertEquals(10, highs.size());
-		assertEquals(Integer.valueOf(100), highs.get(0));
+		assertEquals(Integer.valueOf(400), highs.get(0));
 		assertEquals(Integer.valueOf(200), highs.get(1));
-		assertEquals(Integer.valueOf(400), highs.get(2));
+		assertEquals(Integer.valueOf(100), highs.get(2));
 		for (int i = 3; i < 10; i++) {
 			assertEquals(Integer.valueOf(0), highs.get(i));
         }
@@ -78,8 +78,8 @@ public class ScoreTest {
         Score s = new Score(new NullEntryRepo());
         List<Integer> highs = s.getHighScores();
         assertEquals(Integer.valueOf(5), highs.get(0));
-        assertEquals(Integer.valueOf(0), highs.get(1));
-        assertEquals(Integer.valueOf(3), highs.get(2));
+        assertEquals(Integer.valueOf(3), highs.get(1));
+        assertEquals(Integer.valueOf(0), highs.get(2));
         assertEquals(10, highs.size());
     }
 
@@ -150,13 +150,13 @@ public class ScoreTest {
 
 	@Test
 	public void readsOnlyTopN() throws IOException {
-		// 12 lines; only 10 should be loaded, then potentially trimmed/sorted on add
-		String[] lines = new String[]{"1","2","3","4","5","6","7","8","9","10","11","12"};
+		// 12 unsorted lines; only the largest 10 should be kept, largest first
+		String[] lines = new String[]{"4","12","1","7","2","9","3","11","5","10","6","8"};
 		Path p = writeTempFile(lines);
 		Score s = new Score(p.toString());
 		List<Integer> highs = s.getHighScores();
 		assertEquals(10, highs.size());
-		assertEquals(Integer.valueOf(1), highs.get(0));
-		assertEquals(Integer.valueOf(10), highs.get(9));
+		assertEquals(Integer.valueOf(12), highs.get(0));
+		assertEquals(Integer.valueOf(3), highs.get(9));
 	}
 }
@@ -0,0 +1,87 @@
+import java.awt.Rectangle;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class SimulationTest {
+
+	@Test
+	public void largeArenaSpreadsStartsOut() {
+		Simulation sim = new Simulation(4000, 4000);
+		Player[] players = sim.start(5L, 0, 256);
+		assertEquals(256, players.length);
+		int close = 0;
+		for (int i = 0; i < players.length; i++) {
+			Player a = players[i];
+			assertTrue(a.x >= 400 && a.x < 3600 && a.y >= 400 && a.y < 3600);
+			for (int j = i + 1; j < players.length; j++) {
+				Player b = players[j];
+				if (Math.abs(a.x - b.x) < 20 && Math.abs(a.y - b.y) < 20) {
+					close++;
+				}
+			}
+		}
+		assertEquals(0, close);
+	}
+
+	@Test
+	public void boundsNeverGrowPastTheOccupancyGrid() {
+		Simulation sim = new Simulation(200, 200);
+		sim.setBounds(1000, 1000);
+		Player[] players = sim.start(8L, 1, 0);
+		for (int i = 0; i < 400; i++) {
+			sim.step();
+			assertTrue(players[0].x < 200 && players[0].y < 200);
+		}
+		// the wall of the grid's court stopped the player
+		assertFalse(players[0].getAlive());
+	}
+
+	@Test
+	public void paletteGoesBeyondTheClassicColors() {
+		Set<Integer> colors = new HashSet<Integer>();
+		for (int i = 0; i < 64; i++) {
+			colors.add(Simulation.getColor(i).getRGB());
+		}
+		assertEquals(Simulation.COLORS[3], Simulation.getColor(3));
+		assertTrue(colors.size() > 48);
+	}
+
+	@Test
+	public void startsHeadTowardTheCenter() {
+		Simulation sim = new Simulation(1000, 600);
+		for (Player p : sim.start(9L, 0, 32)) {
+			if (p.velocityX != 0) {
+				assertEquals(p.x < 500, p.velocityX > 0);
+			} else {
+				assertEquals(p.y < 300, p.velocityY > 0);
+			}
+		}
+	}
+
+	@Test
+	public void movesReportTheAreaTheyChanged() {
+		Simulation sim = new Simulation(500, 500);
+		Player[] players = sim.start(13L, 1, 2);
+		int[] xs = new int[3];
+		int[] ys = new int[3];
+		for (int i = 0; i < 3; i++) {
+			xs[i] = players[i].x;
+			ys[i] = players[i].y;
+		}
+		sim.step();
+		Rectangle dirty = new Rectangle(0, 0, -1, -1);
+		for (int i = 0; i < 3; i++) {
+			Rectangle r = new Rectangle(0, 0, -1, -1);
+			assertTrue(players[i].addMoved(r));
+			assertTrue(r.contains(xs[i] - 2, ys[i] - 2) && r.contains(xs[i] + 2, ys[i] + 2));
+			assertTrue(r.contains(players[i].x - 2, players[i].y - 2)
+					&& r.contains(players[i].x + 2, players[i].y + 2));
+			players[i].addMoved(dirty);
+			assertTrue(dirty.contains(r));
+		}
+		assertTrue(dirty.width < 500 || dirty.height < 500);
+	}
+}
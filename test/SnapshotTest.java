@@ -0,0 +1,84 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class SnapshotTest {
+
+	// a compact description of every player's state, for comparisons
+	private static String state(Simulation sim) {
+		StringBuilder sb = new StringBuilder();
+		for (Player p : sim.getPlayers()) {
+			sb.append(p.x).append(',').append(p.y).append(',')
+				.append(p.velocityX).append(',').append(p.velocityY).append(',')
+				.append(p.getAlive()).append(',').append(p.getBoostsLeft()).append(':');
+			Trail t = p.getPath();
+			for (int i = 0; i < t.size(); i++) {
+				sb.append(t.getStartX(i)).append(' ').append(t.getStartY(i)).append(' ')
+					.append(t.getEndX(i)).append(' ').append(t.getEndY(i)).append(';');
+			}
+			sb.append('|');
+		}
+		return sb.append(sim.getTick()).toString();
+	}
+
+	private static void run(Simulation sim, int steps) {
+		for (int i = 0; i < steps && sim.countAlive() > 1; i++) {
+			sim.step();
+		}
+	}
+
+	@Test
+	public void restoreReplaysTheSameFuture() {
+		Simulation sim = new Simulation(500, 500);
+		sim.start(11L, 0, 6);
+		run(sim, 50);
+		Snapshot snap = sim.snapshot();
+		run(sim, 150);
+		String expected = state(sim);
+
+		sim.restore(snap);
+		assertEquals(50, sim.getTick());
+		run(sim, 150);
+		assertEquals(expected, state(sim));
+	}
+
+	@Test
+	public void divergingAfterRestoreLeavesSnapshotIntact() {
+		Simulation sim = new Simulation(500, 500);
+		Player[] players = sim.start(12L, 1, 3);
+		run(sim, 40);
+		Snapshot snap = sim.snapshot();
+		String atSnapshot = state(sim);
+
+		run(sim, 60);
+		sim.restore(snap);
+		sim.turn(players[0], Direction.UP);
+		sim.jump(players[0]);
+		run(sim, 60);
+		sim.restore(snap);
+		assertEquals(atSnapshot, state(sim));
+	}
+
+	@Test
+	public void gridCopyIsUnaffectedByLaterStamps() {
+		OccupancyGrid grid = new OccupancyGrid(500, 500);
+		grid.stampSegment(10, 10, 100, 10, 2, 2);
+		OccupancyGrid copy = grid.copy();
+		grid.stampSegment(200, 10, 200, 300, 2, 2);
+		assertTrue(copy.get(50, 11));
+		assertFalse(copy.get(200, 100));
+		assertTrue(grid.get(200, 100));
+
+		grid.restore(copy);
+		assertFalse(grid.get(200, 100));
+		assertTrue(grid.get(50, 11));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsSnapshotOfAnotherMatch() {
+		Simulation sim = new Simulation(500, 500);
+		sim.start(1L, 1, 1);
+		Snapshot snap = sim.snapshot();
+		sim.start(2L, 1, 1);
+		sim.restore(snap);
+	}
+}
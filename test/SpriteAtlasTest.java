@@ -0,0 +1,90 @@
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class SpriteAtlasTest {
+
+	@Test
+	public void atlasHoldsEverySmallSpritePixelForPixel() throws IOException {
+		SpriteAtlas atlas = SpriteAtlas.load("/atlas/atlas.png", "/atlas/atlas.txt");
+		assertNotNull(atlas);
+		int packed = 0;
+		long packedBytes = 0;
+		for (String name : AssetLoader.listImages()) {
+			BufferedImage expected;
+			byte[] file;
+			try (InputStream in = getClass().getResourceAsStream("/images/" + name)) {
+				file = readAll(in);
+			}
+			expected = ImageIO.read(new ByteArrayInputStream(file));
+			if (!atlas.contains(name)) {
+				// photos and full-page pictures stay separate files
+				assertTrue(name, name.endsWith(".jpg") || (long) expected.getWidth()
+						* expected.getHeight() > AtlasPacker.MAX_SPRITE_PIXELS);
+				continue;
+			}
+			packed++;
+			packedBytes += file.length;
+			BufferedImage sprite = atlas.get(name);
+			assertEquals(expected.getWidth(), sprite.getWidth());
+			assertEquals(expected.getHeight(), sprite.getHeight());
+			for (int y = 0; y < sprite.getHeight(); y++) {
+				for (int x = 0; x < sprite.getWidth(); x++) {
+					assertEquals(name + " " + x + "," + y, expected.getRGB(x, y), sprite.getRGB(x, y));
+				}
+			}
+		}
+		assertTrue(packed > 0);
+		// the atlas must not cost more to load than the files it replaces
+		try (InputStream in = getClass().getResourceAsStream("/atlas/atlas.png")) {
+			assertTrue(readAll(in).length < packedBytes);
+		}
+	}
+
+	private static byte[] readAll(InputStream in) throws IOException {
+		java.io.ByteArrayOutputStream out = new java.io.ByteArrayOutputStream();
+		byte[] buf = new byte[8192];
+		for (int n; (n = in.read(buf)) > 0; ) {
+			out.write(buf, 0, n);
+		}
+		return out.toByteArray();
+	}
+
+	@Test
+	public void drawsOnlyTheNamedRegion() throws IOException {
+		BufferedImage img = new BufferedImage(4, 2, BufferedImage.TYPE_INT_RGB);
+		img.setRGB(0, 0, Color.RED.getRGB());
+		img.setRGB(2, 1, Color.GREEN.getRGB());
+		Map<String, int[]> regions = SpriteAtlas.readIndex(new ByteArrayInputStream(
+				"# test\nred 0 0 2 1\n\ngreen 2 1 1 1\n".getBytes("UTF-8")));
+		SpriteAtlas atlas = new SpriteAtlas(img, regions);
+
+		BufferedImage target = new BufferedImage(3, 3, BufferedImage.TYPE_INT_RGB);
+		Graphics g = target.getGraphics();
+		assertTrue(atlas.draw(g, "green", 1, 1));
+		assertFalse(atlas.draw(g, "blue", 0, 0));
+		g.dispose();
+		assertEquals(Color.GREEN.getRGB(), target.getRGB(1, 1));
+		assertEquals(Color.BLACK.getRGB(), target.getRGB(2, 1));
+		assertEquals(Color.BLACK.getRGB(), target.getRGB(1, 2));
+		assertSame(atlas.get("red"), atlas.get("red"));
+		assertNull(atlas.get("blue"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsRegionsOutsideTheImage() {
+		Map<String, int[]> regions = new HashMap<>();
+		regions.put("big", new int[] {0, 0, 5, 1});
+		new SpriteAtlas(new BufferedImage(4, 2, BufferedImage.TYPE_INT_RGB), regions);
+	}
+}
@@ -0,0 +1,85 @@
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class TimerWheelTest {
+
+	// a task that logs the step it ran at
+	private static Runnable logger(final TimerWheel wheel, final List<Long> log) {
+		return new Runnable() {
+			public void run() {
+				log.add(wheel.now());
+			}
+		};
+	}
+
+	@Test
+	public void runsTasksAtTheirStepAcrossRounds() {
+		TimerWheel wheel = new TimerWheel(4);
+		List<Long> log = new ArrayList<Long>();
+		wheel.schedule(3, logger(wheel, log));
+		wheel.schedule(7, logger(wheel, log));
+		wheel.schedule(11, logger(wheel, log));
+		assertEquals(3, wheel.size());
+		for (int i = 0; i < 12; i++) {
+			wheel.advance();
+		}
+		assertEquals(3, log.size());
+		assertEquals(3L, (long) log.get(0));
+		assertEquals(7L, (long) log.get(1));
+		assertEquals(11L, (long) log.get(2));
+		assertEquals(0, wheel.size());
+	}
+
+	@Test
+	public void resetFromATaskDropsTheRest() {
+		final TimerWheel wheel = new TimerWheel(8);
+		final List<Long> log = new ArrayList<Long>();
+		wheel.schedule(2, logger(wheel, log));
+		wheel.schedule(2, new Runnable() {
+			public void run() {
+				wheel.reset(100);
+				wheel.schedule(1, logger(wheel, log));
+			}
+		});
+		wheel.schedule(5, logger(wheel, log));
+		wheel.advance();
+		wheel.advance();
+		assertEquals(100, wheel.now());
+		assertEquals(1, wheel.size());
+		wheel.advance();
+		assertEquals(101L, (long) log.get(log.size() - 1));
+		assertEquals(0, wheel.size());
+	}
+
+	@Test
+	public void boostLastsAFixedNumberOfSteps() {
+		Simulation sim = new Simulation(500, 500);
+		Player p = sim.start(3L, 1, 0)[0];
+		sim.boost(p);
+		for (int i = 0; i < Player.BOOSTTICKS; i++) {
+			assertTrue(p.booster);
+			sim.step();
+		}
+		assertFalse(p.booster);
+		assertEquals(2, p.getBoostsLeft());
+	}
+
+	@Test
+	public void boostSurvivesSnapshotRestore() {
+		Simulation sim = new Simulation(500, 500);
+		Player p = sim.start(4L, 1, 0)[0];
+		sim.boost(p);
+		sim.step();
+		Snapshot snap = sim.snapshot();
+		sim.step();
+		sim.restore(snap);
+		for (int i = 1; i < Player.BOOSTTICKS; i++) {
+			assertTrue(p.booster);
+			sim.step();
+		}
+		assertFalse(p.booster);
+	}
+}
@@ -0,0 +1,52 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class TopScoresTest {
+
+    @Test
+    public void keepsTheLargestInDescendingOrder() {
+        Random r = new Random(17);
+        int[] all = new int[100000];
+        TopScores top = new TopScores(10);
+        for (int i = 0; i < all.length; i++) {
+            all[i] = r.nextInt() >> 8;
+            top.accept(all[i]);
+        }
+        Arrays.sort(all);
+        int[] kept = top.toArray();
+        assertEquals(10, kept.length);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(all[all.length - 1 - i], kept[i]);
+        }
+    }
+
+    @Test
+    public void keepsDuplicatesAndFewerThanN() {
+        TopScores top = new TopScores(4);
+        top.accept(3);
+        top.accept(7);
+        top.accept(3);
+        assertEquals(3, top.size());
+        assertEquals(Arrays.asList(7, 3, 3), top.toList());
+        top.accept(-1);
+        top.accept(7);
+        assertEquals(Arrays.asList(7, 7, 3, 3), top.toList());
+    }
+
+    @Test
+    public void repeatedScoresCountOnceEach() {
+        TopScores top = new TopScores(4);
+        top.add(3, 1000000000000L);
+        top.add(8, 2);
+        top.add(1, 0);
+        assertArrayEquals(new int[] {8, 8, 3, 3}, top.toArray());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEmptyHeap() {
+        new TopScores(0);
+    }
+}
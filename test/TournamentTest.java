@@ -0,0 +1,46 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class TournamentTest {
+
+	@Test
+	public void resultsDoNotDependOnThreadCount() {
+		TournamentStats one = new Tournament(24, 42L).run(1);
+		TournamentStats many = new Tournament(24, 42L).run(4);
+		assertEquals(24, one.getMatches());
+		assertEquals(one.summary(), many.summary());
+	}
+
+	@Test
+	public void everyLoserHasACause() {
+		// count the players that died, independently of the causes recorded
+		final long[] losers = {0};
+		TournamentStats stats = new TournamentStats(Tournament.MAX_PLAYERS) {
+			@Override
+			public void addMatch(Player[] players, long[] survived, long ticks,
+					boolean timedOut) {
+				for (Player p : players) {
+					if (!p.getAlive()) {
+						losers[0]++;
+					}
+				}
+				super.addMatch(players, survived, ticks, timedOut);
+			}
+		};
+		Tournament t = new Tournament(16, 7L);
+		for (int i = 0; i < 16; i++) {
+			t.playMatch(i, stats);
+		}
+		long crashes = 0;
+		for (CrashCause c : CrashCause.values()) {
+			crashes += stats.getCauseCount(c);
+		}
+		assertTrue(losers[0] >= stats.getMatches());
+		assertEquals(losers[0], crashes);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsNegativeMatchCount() {
+		new Tournament(-1, 0L);
+	}
+}
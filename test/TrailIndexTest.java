@@ -0,0 +1,57 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class TrailIndexTest {
+
+	// the pairwise check the index replaced: a player crashes if its head is
+	// on a trail or overlaps any other head
+	private static boolean pairwiseCrash(Player[] players, Player p) {
+		if (p.intersectsTrail() == Intersection.UP) {
+			return true;
+		}
+		for (Player other : players) {
+			if (p.intersects(other) == Intersection.UP) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Test
+	public void matchesThePairwiseCheck() {
+		int crashes = 0;
+		int headOn = 0;
+		for (long seed = 1; seed <= 6; seed++) {
+			Simulation sim = new Simulation(300, 300);
+			Player[] players = sim.start(seed, 0, 12);
+			TrailIndex index = new TrailIndex(300, 300);
+			boolean[] expected = new boolean[players.length];
+			for (int t = 0; t < 400; t++) {
+				for (Player k : players) {
+					k.move();
+				}
+				boolean[] alive = new boolean[players.length];
+				for (int i = 0; i < players.length; i++) {
+					alive[i] = players[i].getAlive();
+					expected[i] = alive[i] && !pairwiseCrash(players, players[i]);
+				}
+				// the players stamp into the simulation's grid; the index
+				// only adds the head buckets
+				index.resolveCrashes(players);
+				for (int i = 0; i < players.length; i++) {
+					assertEquals("seed " + seed + " step " + t + " player " + i,
+							expected[i], players[i].getAlive());
+					if (alive[i] && !expected[i]) {
+						crashes++;
+						if (players[i].getCause() == CrashCause.HEAD_ON) {
+							headOn++;
+						}
+					}
+				}
+			}
+		}
+		// both kinds of crash were compared
+		assertTrue(crashes > headOn);
+		assertTrue(headOn > 0);
+	}
+}
@@ -0,0 +1,72 @@
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class TrailLayerTest {
+
+	// draws every trail from scratch, the way frames used to be painted
+	private static BufferedImage fullDraw(Player[] players) {
+		BufferedImage img = new BufferedImage(500, 500, BufferedImage.TYPE_INT_RGB);
+		Graphics g = img.getGraphics();
+		g.setColor(Color.BLACK);
+		g.fillRect(0, 0, 500, 500);
+		for (Player p : players) {
+			g.setColor(p.color);
+			AwtLineDrawer.draw(p.getPath(), g);
+		}
+		g.dispose();
+		return img;
+	}
+
+	// compares which pixels are covered; where trails cross, the layer
+	// shows the newer one on top rather than the later player
+	private static void assertSamePixels(BufferedImage a, BufferedImage b) {
+		int black = Color.BLACK.getRGB();
+		for (int y = 0; y < 500; y++) {
+			for (int x = 0; x < 500; x++) {
+				assertEquals("pixel " + x + "," + y, a.getRGB(x, y) == black,
+						b.getRGB(x, y) == black);
+			}
+		}
+	}
+
+	@Test
+	public void incrementalFramesMatchAFullRedraw() {
+		Simulation sim = new Simulation(500, 500);
+		Player[] players = sim.start(21L, 1, 5);
+		sim.jump(players[0]);
+		TrailLayer layer = new TrailLayer(500, 500, Color.BLACK);
+		BufferedImage frame = new BufferedImage(500, 500, BufferedImage.TYPE_INT_RGB);
+		for (int i = 0; i < 300 && sim.countAlive() > 1; i++) {
+			sim.step();
+			if (i == 40) {
+				sim.jump(players[0]);
+			}
+			Graphics g = frame.getGraphics();
+			layer.paint(g, players, null);
+			g.dispose();
+		}
+		assertSamePixels(fullDraw(players), frame);
+	}
+
+	@Test
+	public void restartsForANewMatch() {
+		Simulation sim = new Simulation(500, 500);
+		TrailLayer layer = new TrailLayer(500, 500, Color.BLACK);
+		BufferedImage frame = new BufferedImage(500, 500, BufferedImage.TYPE_INT_RGB);
+		sim.start(1L, 0, 4);
+		for (int i = 0; i < 100; i++) {
+			sim.step();
+			layer.paint(frame.getGraphics(), sim.getPlayers(), null);
+		}
+		Player[] players = sim.start(2L, 0, 3);
+		for (int i = 0; i < 30; i++) {
+			sim.step();
+		}
+		layer.paint(frame.getGraphics(), players, null);
+		assertSamePixels(fullDraw(players), frame);
+	}
+}
@@ -0,0 +1,74 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class TrailTest {
+
+	@Test
+	public void emptyTrailHasNoSegments() {
+		Trail t = new Trail();
+		assertEquals(0, t.size());
+	}
+
+	@Test
+	public void straightMovesExtendTailInPlace() {
+		Trail t = new Trail();
+		t.extend(10, 10, 13, 10);
+		t.extend(13, 10, 16, 10);
+		t.extend(16, 10, 19, 10);
+		assertEquals(1, t.size());
+		assertEquals(10, t.getStartX(0));
+		assertEquals(19, t.getEndX(0));
+		assertFalse(t.isVertical(0));
+	}
+
+	@Test
+	public void turnAppendsVertex() {
+		Trail t = new Trail();
+		t.extend(10, 10, 13, 10);
+		t.extend(13, 10, 13, 7);
+		t.extend(13, 7, 13, 4);
+		assertEquals(2, t.size());
+		assertEquals(13, t.getStartX(1));
+		assertEquals(10, t.getStartY(1));
+		assertEquals(4, t.getEndY(1));
+		assertTrue(t.isVertical(1));
+	}
+
+	@Test
+	public void jumpLeavesGap() {
+		Trail t = new Trail();
+		t.extend(10, 10, 13, 10);
+		t.extend(29, 10, 32, 10);
+		assertEquals(4, t.size());
+		assertFalse(t.isGap(0));
+		assertTrue(t.isGap(1));
+		assertTrue(t.isGap(2));
+		assertNull(t.get(1));
+		Shape s = t.get(3);
+		assertEquals(29, s.getStartX());
+		assertEquals(32, s.getEndX());
+	}
+
+	@Test
+	public void zeroLengthSegmentsIgnored() {
+		Trail t = new Trail();
+		t.extend(10, 10, 13, 10);
+		t.extend(13, 10, 13, 10);
+		assertEquals(1, t.size());
+		assertEquals(13, t.getEndX(0));
+	}
+
+	@Test
+	public void growsPastInitialCapacity() {
+		Trail t = new Trail();
+		int x = 0;
+		for (int i = 0; i < 100; i++) {
+			int y = (i % 2 == 0) ? 0 : 3;
+			t.extend(x, i == 0 ? 0 : (i % 2 == 0 ? 3 : 0), x, y);
+			t.extend(x, y, x + 3, y);
+			x += 3;
+		}
+		assertEquals(199, t.size());
+		assertEquals(x, t.getEndX(t.size() - 1));
+	}
+}
@@ -0,0 +1,27 @@
+import javax.swing.JLabel;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class TronMapTest {
+
+	@Test
+	public void onlyAnActiveLevelTicks() {
+		TronMapStory level = new TronMapStory(new JLabel(), new JLabel(), 2);
+		assertFalse(level.timer.isRunning());
+		level.activate();
+		assertTrue(level.timer.isRunning());
+		assertEquals(2, level.getPlayers().length);
+		level.suspend();
+		assertFalse(level.timer.isRunning());
+		level.dispose();
+		assertFalse(level.timer.isRunning());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void disposedLevelCannotBeActivated() {
+		TronMapTwoPlayer level = new TronMapTwoPlayer(new JLabel(), new JLabel(), 2);
+		level.dispose();
+		level.activate();
+	}
+}
@@ -0,0 +1,162 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class WriteBehindScoreRepositoryTest {
+
+    // Records every write and lets the test hold the writer thread
+    static class SlowRepo implements ScoreRepository {
+        final List<List<Integer>> writes = new ArrayList<List<Integer>>();
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch written = new CountDownLatch(1);
+        final CountDownLatch started = new CountDownLatch(1);
+
+        public List<Integer> read() {
+            return new ArrayList<Integer>(Arrays.asList(1));
+        }
+
+        public void write(List<Integer> scores) {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (writes) {
+                writes.add(new ArrayList<Integer>(scores));
+            }
+            written.countDown();
+        }
+    }
+
+    @Test
+    public void writesReturnAtOnceAndCoalesce() throws Exception {
+        SlowRepo slow = new SlowRepo();
+        WriteBehindScoreRepository repo = new WriteBehindScoreRepository(slow, 50);
+        assertEquals(Arrays.asList(1), repo.read());
+        repo.write(Arrays.asList(3));
+        repo.write(Arrays.asList(5, 3));
+        repo.write(Arrays.asList(7, 5, 3));
+        // readers see the newest scores before they reach the disk
+        assertEquals(Arrays.asList(7, 5, 3), repo.read());
+        assertTrue(slow.writes.isEmpty());
+
+        slow.release.countDown();
+        assertTrue(slow.written.await(5, TimeUnit.SECONDS));
+        repo.close();
+        assertEquals(1, slow.writes.size());
+        assertEquals(Arrays.asList(7, 5, 3), slow.writes.get(0));
+    }
+
+    @Test
+    public void closeFlushesPendingScores() throws IOException {
+        Path p = Files.createTempFile("wbsr-", ".txt");
+        p.toFile().deleteOnExit();
+        WriteBehindScoreRepository repo =
+                new WriteBehindScoreRepository(new FileScoreRepository(p.toString()), 60000);
+        Score s = new Score(repo);
+        s.addHighScore(42);
+        assertEquals(0, Files.size(p));
+        repo.close();
+        assertEquals("42", Files.readAllLines(p, StandardCharsets.UTF_8).get(0));
+    }
+
+    @Test(expected = IOException.class)
+    public void writeAfterCloseFails() throws IOException {
+        WriteBehindScoreRepository repo =
+                new WriteBehindScoreRepository(new ScoreRepositoryTest.InMemoryScoreRepository());
+        repo.close();
+        repo.write(Arrays.asList(1));
+    }
+
+    @Test
+    public void failedFlushKeepsScoresForTheNextAttempt() throws IOException {
+        Path dir = Files.createTempDirectory("wbsr-dir-");
+        dir.toFile().deleteOnExit();
+        WriteBehindScoreRepository repo =
+                new WriteBehindScoreRepository(new FileScoreRepository(dir.toString()), 60000);
+        repo.write(Arrays.asList(9));
+        try {
+            repo.flush();
+            fail("Expected IOException");
+        } catch (IOException expected) {
+        }
+        assertEquals(Arrays.asList(9), repo.read());
+        Files.delete(dir);
+        repo.close();
+        assertEquals(Arrays.asList("9"), Files.readAllLines(dir, StandardCharsets.UTF_8));
+        Files.delete(dir);
+    }
+
+    @Test
+    public void readSeesScoresWhileTheyAreBeingWritten() throws Exception {
+        SlowRepo slow = new SlowRepo();
+        WriteBehindScoreRepository repo = new WriteBehindScoreRepository(slow, 0);
+        repo.write(Arrays.asList(8, 2));
+        assertTrue(slow.started.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(8, 2), repo.read());
+        slow.release.countDown();
+        repo.close();
+        assertEquals(Arrays.asList(8, 2), slow.writes.get(0));
+    }
+
+    @Test
+    public void failedBackgroundFlushIsRetried() throws Exception {
+        final CountDownLatch written = new CountDownLatch(1);
+        final int[] attempts = {0};
+        ScoreRepository flaky = new ScoreRepositoryTest.InMemoryScoreRepository() {
+            @Override
+            public void write(List<Integer> scores) {
+                if (attempts[0]++ == 0) {
+                    throw new IllegalStateException("disk full");
+                }
+                super.write(scores);
+                written.countDown();
+            }
+        };
+        WriteBehindScoreRepository repo = new WriteBehindScoreRepository(flaky, 0);
+        repo.write(Arrays.asList(4));
+        assertTrue(written.await(5, TimeUnit.SECONDS));
+        assertEquals(2, attempts[0]);
+        assertEquals(Arrays.asList(4), flaky.read());
+        repo.close();
+    }
+
+    @Test
+    public void addedScoresReachTheDelegateInOrderOffTheCallingThread() throws Exception {
+        final List<Integer> added = new ArrayList<Integer>();
+        final List<String> threads = new ArrayList<String>();
+        ScoreRepository journal = new ScoreRepositoryTest.InMemoryScoreRepository() {
+            @Override
+            public synchronized void add(int score, List<Integer> top) {
+                added.add(score);
+                threads.add(Thread.currentThread().getName());
+            }
+        };
+        WriteBehindScoreRepository repo = new WriteBehindScoreRepository(journal, 50);
+        repo.write(Arrays.asList(2));
+        repo.add(6, Arrays.asList(6, 2));
+        repo.add(4, Arrays.asList(6, 4, 2));
+        // the caller gets the new top list at once; nothing has been handed on yet
+        assertEquals(Arrays.asList(6, 4, 2), repo.read());
+        assertTrue(added.isEmpty());
+
+        repo.forEach(v -> { });
+        assertEquals(Arrays.asList(6, 4), added);
+        assertEquals(Arrays.asList(2), journal.read());
+        repo.add(9, Arrays.asList(9, 6, 4));
+        Thread.sleep(300);
+        repo.close();
+        assertEquals(Arrays.asList(6, 4, 9), added);
+        assertEquals("ScoreWriter", threads.get(2));
+    }
+}